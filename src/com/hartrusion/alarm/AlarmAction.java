@@ -23,19 +23,132 @@
  */
 package com.hartrusion.alarm;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Defines an action that will be run when a defined alarm value is reached.
- * 
+ * <p>
+ * Actions are run by an AlarmActionDispatcher. Synchronous actions run in the
+ * same simulation step on the thread which checks the alarm, asynchronous
+ * actions are run on the executor of the dispatcher, so a slow action can not
+ * stall the simulation. The action keeps metrics of its execution times.
+ *
  * @author Viktor Alexander Hartung
  */
 public abstract class AlarmAction implements Runnable{
     private AlarmState state;
-    
+    private final boolean asynchronous;
+
+    /**
+     * Maximum expected execution time, -1 to use the default of the
+     * dispatcher.
+     */
+    private long deadlineNanos = -1;
+
+    private long executionCount;
+    private long failureCount;
+    private long overrunCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Creates a synchronous action.
+     *
+     * @param state Alarm state which triggers the action.
+     */
     public AlarmAction(AlarmState state) {
+        this(state, false);
+    }
+
+    /**
+     * Creates an action.
+     *
+     * @param state Alarm state which triggers the action.
+     * @param asynchronous true to run the action on the executor of the
+     * dispatcher instead of the simulation thread.
+     */
+    public AlarmAction(AlarmState state, boolean asynchronous) {
         this.state = state;
+        this.asynchronous = asynchronous;
     }
-    
+
     public AlarmState getState() {
         return state;
     }
+
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * Sets the maximum expected execution time. If the action takes longer,
+     * the dispatcher logs a warning and counts an overrun.
+     *
+     * @param time Maximum execution time.
+     * @param unit TimeUnit of time.
+     */
+    public void setDeadline(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("time must not be negative.");
+        }
+        deadlineNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Returns the maximum expected execution time.
+     *
+     * @return time in nanoseconds, -1 if the default of the dispatcher is
+     * used.
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    synchronized void recordExecution(long nanos, boolean failed,
+            boolean overrun) {
+        executionCount++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (failed) {
+            failureCount++;
+        }
+        if (overrun) {
+            overrunCount++;
+        }
+    }
+
+    public synchronized long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * Number of executions which ended with an exception.
+     *
+     * @return number of failed executions
+     */
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Number of executions which took longer than the deadline.
+     *
+     * @return number of overruns
+     */
+    public synchronized long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public synchronized long getMaxExecutionNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Average execution time of all executions.
+     *
+     * @return time in nanoseconds, 0 if the action was never run.
+     */
+    public synchronized long getAverageExecutionNanos() {
+        return executionCount == 0 ? 0 : totalNanos / executionCount;
+    }
 }
@@ -0,0 +1,256 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs AlarmActions for alarm monitors. Synchronous actions are run directly,
+ * asynchronous actions are handed over to an executor. In both cases the
+ * execution time is measured and recorded to the action, exceptions thrown by
+ * the action are caught and logged, so a failing action can not break the
+ * simulation step.
+ * <p>
+ * If an action takes longer than its deadline, or the default deadline of the
+ * dispatcher, a warning is logged. If the executor can not take any more
+ * actions, the action is dropped and counted.
+ * <p>
+ * By default, the executor is a bounded pool with daemon threads which is
+ * created when the first asynchronous action is dispatched. Monitors use the
+ * shared default dispatcher unless another one is set.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmActionDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            AlarmActionDispatcher.class.getName());
+
+    private static final AlarmActionDispatcher DEFAULT
+            = new AlarmActionDispatcher();
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final int threads;
+    private final int queueCapacity;
+    private ExecutorService executor;
+
+    private volatile long defaultDeadlineNanos
+            = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+
+    /**
+     * Creates a dispatcher with one thread and up to 64 waiting actions.
+     */
+    public AlarmActionDispatcher() {
+        this(1, 64);
+    }
+
+    /**
+     * Creates a dispatcher with its own bounded thread pool.
+     *
+     * @param threads Number of threads for asynchronous actions.
+     * @param queueCapacity Number of actions that can wait for a thread.
+     */
+    public AlarmActionDispatcher(int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "threads and queueCapacity must be positive values.");
+        }
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Creates a dispatcher which uses the given executor for asynchronous
+     * actions. The executor has to reject actions if it is overloaded
+     * instead of blocking.
+     *
+     * @param executor ExecutorService, will be shut down with shutdown.
+     */
+    public AlarmActionDispatcher(ExecutorService executor) {
+        this.threads = 0;
+        this.queueCapacity = 0;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the dispatcher which is used by monitors that have no other
+     * dispatcher set.
+     *
+     * @return shared AlarmActionDispatcher
+     */
+    public static AlarmActionDispatcher getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Runs an action, either directly or on the executor.
+     *
+     * @param source Name of the monitor which triggered the action, used for
+     * log messages.
+     * @param action AlarmAction to run.
+     * @return false if the action was dropped.
+     */
+    public boolean dispatch(String source, AlarmAction action) {
+        dispatched.incrementAndGet();
+        if (!action.isAsynchronous()) {
+            execute(source, action);
+            return true;
+        }
+        try {
+            getExecutor().execute(() -> execute(source, action));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            dropped.incrementAndGet();
+            LOGGER.log(Level.WARNING, "AlarmAction of {0} for state {1} was "
+                    + "dropped, executor is overloaded.",
+                    new Object[]{source, action.getState()});
+            return false;
+        }
+    }
+
+    private void execute(String source, AlarmAction action) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            action.run();
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        long elapsed = System.nanoTime() - start;
+        long deadline = action.getDeadlineNanos() >= 0
+                ? action.getDeadlineNanos() : defaultDeadlineNanos;
+        boolean overrun = elapsed > deadline;
+        action.recordExecution(elapsed, failure != null, overrun);
+        if (failure != null) {
+            failed.incrementAndGet();
+            LOGGER.log(Level.WARNING, "AlarmAction of " + source
+                    + " for state " + action.getState() + " failed.", failure);
+        }
+        if (overrun) {
+            overruns.incrementAndGet();
+            LOGGER.log(Level.WARNING, "AlarmAction of {0} for state {1} took "
+                    + "{2} ms, deadline is {3} ms.",
+                    new Object[]{source, action.getState(), elapsed / 1e6,
+                        deadline / 1e6});
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "AlarmAction-"
+                                + THREAD_NUMBER.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the deadline for actions which do not define their own one.
+     * Default: 5 ms.
+     *
+     * @param time Maximum execution time.
+     * @param unit TimeUnit of time.
+     */
+    public void setDefaultDeadline(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("time must not be negative.");
+        }
+        defaultDeadlineNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Stops the executor after all queued actions were run. Synchronous
+     * actions can still be dispatched afterwards.
+     * <p>
+     * If the dispatcher created its own pool, a new pool is created with the
+     * next asynchronous action, so the default dispatcher stays usable if
+     * anyone shuts it down. An executor which was passed to the constructor
+     * can not be replaced, asynchronous actions are dropped after it was
+     * shut down.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit TimeUnit of timeout.
+     * @return true if all actions were run within the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        ExecutorService e;
+        synchronized (this) {
+            e = executor;
+            if (threads > 0) {
+                // Actions dispatched from now on go to a new pool.
+                executor = null;
+            }
+        }
+        if (e == null) {
+            return true;
+        }
+        e.shutdown();
+        return e.awaitTermination(timeout, unit);
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * Number of asynchronous actions which were not run as the executor was
+     * overloaded or shut down.
+     *
+     * @return number of dropped actions
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+/**
+ * Immutable copy of the state of an AlarmObject, used in AlarmSnapshot. As
+ * long as an alarm object does not change, each snapshot contains the same
+ * entry instance, so lists can be compared by identity.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmEntry {
+
+    private final String component;
+    private final String description;
+    private final AlarmState state;
+    private final boolean suppressed;
+    private final boolean acknowledged;
+    private final long sequence;
+
+    AlarmEntry(AlarmObject a) {
+        component = a.getComponent();
+        description = a.getDescription();
+        state = a.getState();
+        suppressed = a.isSuppressed();
+        acknowledged = a.isAcknowledged();
+        sequence = a.getSequence();
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public AlarmState getState() {
+        return state;
+    }
+
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    public boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * Increasing number of the last state change of the alarm.
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return component + " [" + state + "]";
+    }
+}
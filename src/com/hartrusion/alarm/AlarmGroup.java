@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of the alarm group tree of an AlarmManager, for example a subsystem, a
+ * loop or a pump. Each group holds the number of its alarms in each state and
+ * the number of unacknowledged alarms, including the alarms of all child
+ * groups. Those numbers are updated by the AlarmManager on each transition of
+ * an alarm in this group, so reading the worst state of a group does not
+ * require scanning any alarms.
+ * <p>
+ * Groups are defined with the AlarmManager. The worst state and the number of
+ * unacknowledged alarms can be read from any thread, other values should only
+ * be read by the thread which fires the alarms.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmGroup {
+
+    private static final AlarmState[] STATES = AlarmState.values();
+
+    private final String name;
+    private final boolean prefix;
+    private AlarmGroup parent;
+    private boolean explicitParent;
+    private final List<AlarmGroup> children = new ArrayList<>();
+
+    private final int[] stateCounts = new int[STATES.length];
+    private int alarmCount;
+    private volatile int unacknowledgedCount;
+    private volatile AlarmState worstState = AlarmState.NONE;
+
+    AlarmGroup(String name, boolean prefix) {
+        this.name = name;
+        this.prefix = prefix;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if all alarms whose names start with the name of this group
+     * belong to the group, false if alarms are assigned explicitly.
+     *
+     * @return true for a prefix group.
+     */
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the parent group.
+     *
+     * @return AlarmGroup or null for the root group.
+     */
+    public AlarmGroup getParent() {
+        return parent;
+    }
+
+    public List<AlarmGroup> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the state with the highest priority rank of all alarms in this
+     * group and its child groups.
+     *
+     * @return AlarmState, NONE if there is no active alarm.
+     */
+    public AlarmState getWorstState() {
+        return worstState;
+    }
+
+    /**
+     * Number of alarms in this group and its child groups which are not
+     * acknowledged.
+     *
+     * @return number of unacknowledged alarms
+     */
+    public int getUnacknowledgedCount() {
+        return unacknowledgedCount;
+    }
+
+    /**
+     * Number of alarms in this group and its child groups with the given
+     * state.
+     *
+     * @param state AlarmState
+     * @return number of alarms
+     */
+    public int getCount(AlarmState state) {
+        return stateCounts[state.ordinal()];
+    }
+
+    /**
+     * Number of alarms in this group and its child groups, active or not.
+     *
+     * @return number of alarms
+     */
+    public int getAlarmCount() {
+        return alarmCount;
+    }
+
+    /**
+     * Number of alarms in this group and its child groups which are not in
+     * state NONE.
+     *
+     * @return number of active alarms
+     */
+    public int getActiveCount() {
+        return alarmCount - stateCounts[AlarmState.NONE.ordinal()];
+    }
+
+    /**
+     * Checks if an alarm name belongs to this group by its prefix.
+     */
+    boolean matches(String component) {
+        return prefix && component.startsWith(name);
+    }
+
+    boolean hasExplicitParent() {
+        return explicitParent;
+    }
+
+    void setParent(AlarmGroup parent, boolean explicit) {
+        if (this.parent != null) {
+            this.parent.children.remove(this);
+        }
+        this.parent = parent;
+        explicitParent = explicit;
+        if (parent != null) {
+            parent.children.add(this);
+        }
+    }
+
+    /**
+     * Adds (delta 1) or removes (delta -1) the contribution of an alarm to
+     * this group and all its parents.
+     */
+    void update(AlarmState state, boolean acknowledged, int delta) {
+        for (AlarmGroup g = this; g != null; g = g.parent) {
+            g.stateCounts[state.ordinal()] += delta;
+            g.alarmCount += delta;
+            if (!acknowledged) {
+                g.unacknowledgedCount += delta;
+            }
+            g.updateWorstState();
+        }
+    }
+
+    void clear() {
+        Arrays.fill(stateCounts, 0);
+        alarmCount = 0;
+        unacknowledgedCount = 0;
+        worstState = AlarmState.NONE;
+    }
+
+    private void updateWorstState() {
+        AlarmState worst = AlarmState.NONE;
+        int worstRank = 0;
+        for (AlarmState s : STATES) {
+            int rank = ComparePriority.rank(s);
+            if (stateCounts[s.ordinal()] > 0 && rank > worstRank) {
+                worst = s;
+                worstRank = rank;
+            }
+        }
+        worstState = worst;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + worstState + "]";
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes all alarm transitions to a binary, append-only journal file.
+ * <p>
+ * Events are put into a bounded ring buffer by the AlarmManager and written
+ * to the file by a background thread, so the simulation thread never waits
+ * for the disk or for a lock. The ring is a single producer, single consumer
+ * ring without locks, the AlarmManager calls record only while holding its
+ * own lock. If the writer can not keep up and the ring is full, the event is
+ * dropped and counted.
+ * <p>
+ * The file starts with a magic number and the version, followed by records
+ * in little endian byte order. Each record starts with a type byte. A name
+ * record (0) assigns an int id to an alarm component, written once before the
+ * first event of the component: int id, unsigned short length and the UTF-8
+ * bytes of the name. Components with names longer than 4096 bytes are not
+ * written. An event record (1) contains the long time, the int id, the old
+ * and new AlarmState as ordinal (-1 for null) and a flag byte with suppressed
+ * (bit 0) and acknowledged (bit 1). Use the AlarmJournalReader to read the
+ * file.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            AlarmJournal.class.getName());
+
+    static final int MAGIC = 0x50484E41;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    static final byte TYPE_NAME = 0;
+    static final byte TYPE_EVENT = 1;
+    static final int EVENT_SIZE = 1 + 8 + 4 + 1 + 1 + 1;
+    static final int MAX_NAME_LENGTH = 4096;
+
+    static final int FLAG_SUPPRESSED = 1;
+    static final int FLAG_ACKNOWLEDGED = 2;
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(AlarmJournal.class, "head", long.class);
+            TAIL = l.findVarHandle(AlarmJournal.class, "tail", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final Path file;
+
+    /**
+     * Ring buffer for the events, one array per field. The producer writes
+     * the slots and then releases the tail, the consumer reads the slots up
+     * to the acquired tail and then releases the head.
+     */
+    private final int mask;
+    private final long[] times;
+    private final String[] components;
+    private final byte[] oldStates;
+    private final byte[] newStates;
+    private final byte[] flags;
+
+    @SuppressWarnings("unused") // accessed via HEAD
+    private long head;
+    @SuppressWarnings("unused") // accessed via TAIL
+    private long tail;
+
+    private volatile long dropped;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    // Only used by the writer thread
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(65536)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int nextId;
+    private volatile long written;
+
+    /**
+     * Creates a journal with a ring of 4096 events.
+     *
+     * @param file Journal file, an existing file will be replaced.
+     */
+    public AlarmJournal(Path file) {
+        this(file, 4096);
+    }
+
+    /**
+     * Creates a journal.
+     *
+     * @param file Journal file, an existing file will be replaced.
+     * @param capacity Number of events that can wait for writing, has to be a
+     * power of two.
+     */
+    public AlarmJournal(Path file, int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(
+                    "capacity must be a power of two.");
+        }
+        this.file = file;
+        mask = capacity - 1;
+        times = new long[capacity];
+        components = new String[capacity];
+        oldStates = new byte[capacity];
+        newStates = new byte[capacity];
+        flags = new byte[capacity];
+    }
+
+    /**
+     * Opens the file, writes the header and starts the background writer
+     * thread.
+     *
+     * @throws IOException if the file can not be created.
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // The file is new, name records have to be written again.
+        ids.clear();
+        nextId = 0;
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(VERSION);
+        running = true;
+        writer = new Thread(this::writeLoop, "AlarmJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread after all recorded events were written and
+     * closes the file.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join();
+            writer = null;
+        }
+    }
+
+    /**
+     * Puts an alarm event into the ring. Never blocks, if the ring is full
+     * the event will be dropped. Must not be called from multiple threads at
+     * the same time.
+     *
+     * @param time Time of the event, as provided by the time source of the
+     * AlarmManager.
+     * @param component Name of the alarm.
+     * @param oldState State before the event, can be null.
+     * @param newState State after the event.
+     * @param suppressed Suppression flag of the alarm.
+     * @param acknowledged Acknowledge state after the event.
+     * @return true if the event was put into the ring.
+     */
+    public boolean record(long time, String component, AlarmState oldState,
+            AlarmState newState, boolean suppressed, boolean acknowledged) {
+        long t = (long) TAIL.getOpaque(this);
+        if (!running || t - (long) HEAD.getAcquire(this) > mask) {
+            dropped++;
+            return false;
+        }
+        int idx = (int) t & mask;
+        times[idx] = time;
+        components[idx] = component;
+        oldStates[idx] = ordinal(oldState);
+        newStates[idx] = ordinal(newState);
+        flags[idx] = (byte) ((suppressed ? FLAG_SUPPRESSED : 0)
+                | (acknowledged ? FLAG_ACKNOWLEDGED : 0));
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    /**
+     * Number of events which were not written as the ring was full or the
+     * journal was not running.
+     *
+     * @return number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    private static byte ordinal(AlarmState state) {
+        return state == null ? -1 : (byte) state.ordinal();
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                boolean stop = !running;
+                long h = (long) HEAD.getOpaque(this);
+                long t = (long) TAIL.getAcquire(this);
+                for (; h < t; h++) {
+                    write((int) h & mask);
+                }
+                HEAD.setRelease(this, h);
+                flush();
+                if (stop) {
+                    break;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Alarm journal stopped, failed to write "
+                    + file, ex);
+            running = false;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Failed to close " + file, ex);
+            }
+        }
+    }
+
+    private void write(int idx) throws IOException {
+        String component = components[idx];
+        components[idx] = null;
+        Integer id = ids.get(component);
+        if (id == null) {
+            byte[] name = component.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_LENGTH) {
+                LOGGER.log(Level.WARNING, "Alarm name is too long for the "
+                        + "journal, events will not be written: {0}",
+                        component.substring(0, 64));
+                ids.put(component, -1);
+                return;
+            }
+            id = nextId++;
+            ids.put(component, id);
+            ensureRemaining(7 + name.length);
+            buffer.put(TYPE_NAME).putInt(id).putShort((short) name.length)
+                    .put(name);
+        } else if (id < 0) {
+            return;
+        }
+        ensureRemaining(EVENT_SIZE);
+        buffer.put(TYPE_EVENT).putLong(times[idx]).putInt(id)
+                .put(oldStates[idx]).put(newStates[idx]).put(flags[idx]);
+        written++;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+/**
+ * One alarm event read from an alarm journal file.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmJournalEntry {
+
+    private final long time;
+    private final String component;
+    private final AlarmState oldState;
+    private final AlarmState newState;
+    private final boolean suppressed;
+    private final boolean acknowledged;
+
+    AlarmJournalEntry(long time, String component, AlarmState oldState,
+            AlarmState newState, boolean suppressed, boolean acknowledged) {
+        this.time = time;
+        this.component = component;
+        this.oldState = oldState;
+        this.newState = newState;
+        this.suppressed = suppressed;
+        this.acknowledged = acknowledged;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    /**
+     * State before the event, null if the alarm was fired the first time.
+     *
+     * @return AlarmState or null
+     */
+    public AlarmState getOldState() {
+        return oldState;
+    }
+
+    public AlarmState getNewState() {
+        return newState;
+    }
+
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    public boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public String toString() {
+        return time + " " + component + " " + oldState + " -> " + newState
+                + (suppressed ? " suppressed" : "")
+                + (acknowledged ? " acknowledged" : "");
+    }
+}
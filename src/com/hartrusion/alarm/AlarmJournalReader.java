@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads an alarm journal file written by an AlarmJournal. The whole file is
+ * read on creation. An incomplete record at the end of the file, which can be
+ * present if the file is read while it is written or after a crash, is
+ * ignored.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmJournalReader {
+
+    private static final AlarmState[] STATES = AlarmState.values();
+
+    private final List<AlarmJournalEntry> entries = new ArrayList<>();
+
+    /**
+     * Reads a journal file.
+     *
+     * @param file Journal file.
+     * @throws IOException if the file can not be read or has a wrong format.
+     */
+    public AlarmJournalReader(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < AlarmJournal.HEADER_SIZE
+                || buf.getInt() != AlarmJournal.MAGIC) {
+            throw new IOException("Not an alarm journal: " + file);
+        }
+        int version = buf.getInt();
+        if (version != AlarmJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        List<String> names = new ArrayList<>();
+        try {
+            while (buf.hasRemaining()) {
+                byte type = buf.get();
+                if (type == AlarmJournal.TYPE_NAME) {
+                    int id = buf.getInt();
+                    byte[] name = new byte[Short.toUnsignedInt(
+                            buf.getShort())];
+                    buf.get(name);
+                    if (id != names.size()) {
+                        throw new IOException("Invalid name id " + id);
+                    }
+                    names.add(new String(name, StandardCharsets.UTF_8));
+                } else if (type == AlarmJournal.TYPE_EVENT) {
+                    long time = buf.getLong();
+                    int id = buf.getInt();
+                    AlarmState oldState = state(buf.get());
+                    AlarmState newState = state(buf.get());
+                    byte flags = buf.get();
+                    if (id < 0 || id >= names.size()) {
+                        throw new IOException("Unknown name id " + id);
+                    }
+                    entries.add(new AlarmJournalEntry(time, names.get(id),
+                            oldState, newState,
+                            (flags & AlarmJournal.FLAG_SUPPRESSED) != 0,
+                            (flags & AlarmJournal.FLAG_ACKNOWLEDGED) != 0));
+                } else {
+                    throw new IOException("Invalid record type " + type);
+                }
+            }
+        } catch (BufferUnderflowException ex) {
+            // incomplete last record, everything before is valid.
+        }
+    }
+
+    private static AlarmState state(byte ordinal) throws IOException {
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= STATES.length) {
+            throw new IOException("Invalid alarm state " + ordinal);
+        }
+        return STATES[ordinal];
+    }
+
+    /**
+     * Returns all events of the journal in the order they were recorded.
+     *
+     * @return unmodifiable List of AlarmJournalEntry
+     */
+    public List<AlarmJournalEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns all events within a time range, including both ends.
+     *
+     * @param fromTime Start of the range.
+     * @param toTime End of the range.
+     * @return List of AlarmJournalEntry
+     */
+    public List<AlarmJournalEntry> read(long fromTime, long toTime) {
+        List<AlarmJournalEntry> result = new ArrayList<>();
+        for (AlarmJournalEntry e : entries) {
+            if (e.getTime() >= fromTime && e.getTime() <= toTime) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all events of one alarm.
+     *
+     * @param component String to identify the alarm.
+     * @return List of AlarmJournalEntry
+     */
+    public List<AlarmJournalEntry> read(String component) {
+        List<AlarmJournalEntry> result = new ArrayList<>();
+        for (AlarmJournalEntry e : entries) {
+            if (e.getComponent().equals(component)) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+}
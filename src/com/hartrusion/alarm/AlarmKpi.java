@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Alarm performance indicators in the style of ISA-18.2, updated with each
+ * alarm transition of an AlarmManager.
+ * <p>
+ * Tracked are the number of standing alarms (active at the moment), the
+ * alarm rate in intervals of 10 minutes per operator, chattering alarms and
+ * the time alarms stay active. Each alarm object holds a small record of
+ * fixed size, global values are counters, so the memory does not grow with
+ * the number of transitions.
+ * <p>
+ * An alarm is counted as annunciated each time it changes from NONE to an
+ * active state or escalates to a state which is not included by the
+ * previous one, which are the transitions that need a new acknowledge.
+ * Changing to a lower priority like MAX2 to MAX1 is no annunciation.
+ * Annunciations of alarms which are shelved during an alarm flood are only
+ * counted separately, they do not count for rates, chattering and the most
+ * frequent alarms. An alarm chatters if it was annunciated chatterCount
+ * times within the chatter window. An alarm is stale if it is active for longer
+ * than the stale time. Times are in units of the time source of the
+ * AlarmManager, the defaults assume milliseconds.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmKpi {
+
+    /**
+     * Number of alarms per interval and operator above which the interval
+     * counts as flood, as recommended by ISA-18.2.
+     */
+    public static final int FLOOD_RATE = 10;
+
+    private long rateInterval = 600_000;
+    private long chatterWindow = 60_000;
+    private int chatterCount = 3;
+    private long staleTime = 86_400_000;
+    private int operatorCount = 1;
+
+    private long annunciations;
+    private long shelvedAnnunciations;
+    private int standingCount;
+
+    private long intervalStart = Long.MIN_VALUE;
+    private int intervalCount;
+    private long completedIntervals;
+    private long completedAnnunciations;
+    private int maxIntervalCount;
+    private long floodIntervals;
+
+    private long chatterEvents;
+
+    private long completedActivations;
+    private long totalTimeInAlarm;
+    private long maxTimeInAlarm;
+
+    /**
+     * Per alarm values, held by the AlarmObject.
+     */
+    static final class Record {
+
+        long annunciations;
+        long activeSince = -1;
+        long timeInAlarm;
+        long chatterEvents;
+
+        /**
+         * Times of the latest annunciations as ring buffer, used to detect
+         * chattering.
+         */
+        long[] recent;
+        int recentHead;
+        int recentCount;
+    }
+
+    /**
+     * Sets the length of the intervals for the alarm rate. Default: 600000
+     * (10 minutes in milliseconds).
+     *
+     * @param rateInterval Interval length in time units of the time source.
+     */
+    public void setRateInterval(long rateInterval) {
+        if (rateInterval <= 0) {
+            throw new IllegalArgumentException(
+                    "rateInterval must be a positive value.");
+        }
+        this.rateInterval = rateInterval;
+        intervalStart = Long.MIN_VALUE;
+    }
+
+    /**
+     * Defines when an alarm counts as chattering. Default: 3 annunciations
+     * within 60000 (one minute in milliseconds).
+     *
+     * @param count Number of annunciations.
+     * @param window Time window in time units of the time source.
+     */
+    public void setChatterDetection(int count, long window) {
+        if (count < 2 || window <= 0) {
+            throw new IllegalArgumentException(
+                    "count must be at least 2 and window positive.");
+        }
+        chatterCount = count;
+        chatterWindow = window;
+    }
+
+    /**
+     * Sets the time after which an active alarm is stale. Default: 86400000
+     * (24 hours in milliseconds).
+     *
+     * @param staleTime Time in time units of the time source.
+     */
+    public void setStaleTime(long staleTime) {
+        if (staleTime <= 0) {
+            throw new IllegalArgumentException(
+                    "staleTime must be a positive value.");
+        }
+        this.staleTime = staleTime;
+    }
+
+    /**
+     * Sets the number of operators which share the alarms, the alarm rate is
+     * given per operator. Default: 1.
+     *
+     * @param operatorCount Number of operators.
+     */
+    public void setOperatorCount(int operatorCount) {
+        if (operatorCount <= 0) {
+            throw new IllegalArgumentException(
+                    "operatorCount must be a positive value.");
+        }
+        this.operatorCount = operatorCount;
+    }
+
+    /**
+     * Updates the indicators with a transition of an alarm.
+     *
+     * @param shelved true if the alarm is shelved after this transition
+     * instead of being shown.
+     */
+    void update(AlarmObject a, AlarmState oldState, AlarmState newState,
+            boolean shelved, long now) {
+        if (oldState == newState) {
+            return;
+        }
+        Record r = a.getKpi();
+        boolean wasActive = oldState != null && oldState != AlarmState.NONE;
+        boolean isActive = newState != AlarmState.NONE;
+        boolean annunciated = isActive && (!wasActive
+                || !ComparePriority.includes(oldState, newState));
+        if (annunciated && shelved) {
+            shelvedAnnunciations++;
+        } else if (annunciated) {
+            annunciations++;
+            r.annunciations++;
+            rollInterval(now);
+            intervalCount++;
+            detectChatter(r, now);
+        }
+        if (isActive && !wasActive) {
+            standingCount++;
+            r.activeSince = now;
+        } else if (!isActive && wasActive) {
+            standingCount--;
+            long duration = now - r.activeSince;
+            r.timeInAlarm += duration;
+            r.activeSince = -1;
+            completedActivations++;
+            totalTimeInAlarm += duration;
+            maxTimeInAlarm = Math.max(maxTimeInAlarm, duration);
+        }
+    }
+
+    private void detectChatter(Record r, long now) {
+        if (r.recent == null || r.recent.length != chatterCount) {
+            r.recent = new long[chatterCount];
+            r.recentHead = 0;
+            r.recentCount = 0;
+        }
+        if (r.recentCount == r.recent.length) {
+            r.recentHead = (r.recentHead + 1) % r.recent.length;
+            r.recentCount--;
+        }
+        r.recent[(r.recentHead + r.recentCount) % r.recent.length] = now;
+        r.recentCount++;
+        if (r.recentCount == r.recent.length
+                && now - r.recent[r.recentHead] <= chatterWindow) {
+            r.chatterEvents++;
+            chatterEvents++;
+            // Start over, so each burst is only counted once per count.
+            r.recentCount = 0;
+        }
+    }
+
+    /**
+     * Completes the rate intervals which ended before the given time.
+     */
+    private void rollInterval(long now) {
+        if (intervalStart == Long.MIN_VALUE) {
+            intervalStart = now;
+            return;
+        }
+        if (now - intervalStart < rateInterval) {
+            return;
+        }
+        completeInterval(intervalCount);
+        intervalCount = 0;
+        long elapsed = (now - intervalStart) / rateInterval;
+        // Intervals without any alarm in between
+        completedIntervals += elapsed - 1;
+        intervalStart += elapsed * rateInterval;
+    }
+
+    private void completeInterval(int count) {
+        completedIntervals++;
+        completedAnnunciations += count;
+        maxIntervalCount = Math.max(maxIntervalCount, count);
+        if (count > FLOOD_RATE * operatorCount) {
+            floodIntervals++;
+        }
+    }
+
+    /**
+     * Creates a report of the current indicators.
+     */
+    AlarmKpiReport createReport(Collection<AlarmObject> alarms, long now) {
+        rollInterval(now);
+        int stale = 0;
+        int chattering = 0;
+        List<AlarmObject> frequent = new ArrayList<>();
+        for (AlarmObject a : alarms) {
+            Record r = a.getKpi();
+            if (r.activeSince >= 0 && now - r.activeSince > staleTime) {
+                stale++;
+            }
+            if (r.chatterEvents > 0) {
+                chattering++;
+            }
+            if (r.annunciations > 0) {
+                frequent.add(a);
+            }
+        }
+        frequent.sort(Comparator.comparingLong(
+                (AlarmObject a) -> a.getKpi().annunciations).reversed());
+        int top = Math.min(10, frequent.size());
+        String[] topNames = new String[top];
+        long[] topCounts = new long[top];
+        for (int idx = 0; idx < top; idx++) {
+            topNames[idx] = frequent.get(idx).getComponent();
+            topCounts[idx] = frequent.get(idx).getKpi().annunciations;
+        }
+        double averageRate = completedIntervals == 0 ? intervalCount
+                : (double) completedAnnunciations / completedIntervals;
+        return new AlarmKpiReport(now, annunciations, shelvedAnnunciations,
+                standingCount, stale,
+                averageRate / operatorCount,
+                (double) Math.max(maxIntervalCount, intervalCount)
+                / operatorCount,
+                completedIntervals == 0 ? 0.0
+                : 100.0 * floodIntervals / completedIntervals,
+                chattering, chatterEvents,
+                completedActivations == 0 ? 0
+                : totalTimeInAlarm / completedActivations,
+                maxTimeInAlarm, topNames, topCounts);
+    }
+}
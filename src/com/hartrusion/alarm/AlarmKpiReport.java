@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+/**
+ * Immutable report of the alarm performance indicators of an AlarmManager at
+ * a given time. Times and rates use the units of the time source and the rate
+ * interval which were set for the indicators. toString gives a compact text
+ * report.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmKpiReport {
+
+    private final long time;
+    private final long annunciations;
+    private final long shelvedAnnunciations;
+    private final int standingCount;
+    private final int staleCount;
+    private final double averageRate;
+    private final double maxRate;
+    private final double floodPercentage;
+    private final int chatteringCount;
+    private final long chatterEvents;
+    private final long averageTimeInAlarm;
+    private final long maxTimeInAlarm;
+    private final String[] topNames;
+    private final long[] topCounts;
+
+    AlarmKpiReport(long time, long annunciations, long shelvedAnnunciations,
+            int standingCount, int staleCount, double averageRate,
+            double maxRate, double floodPercentage, int chatteringCount,
+            long chatterEvents, long averageTimeInAlarm, long maxTimeInAlarm,
+            String[] topNames, long[] topCounts) {
+        this.time = time;
+        this.annunciations = annunciations;
+        this.shelvedAnnunciations = shelvedAnnunciations;
+        this.standingCount = standingCount;
+        this.staleCount = staleCount;
+        this.averageRate = averageRate;
+        this.maxRate = maxRate;
+        this.floodPercentage = floodPercentage;
+        this.chatteringCount = chatteringCount;
+        this.chatterEvents = chatterEvents;
+        this.averageTimeInAlarm = averageTimeInAlarm;
+        this.maxTimeInAlarm = maxTimeInAlarm;
+        this.topNames = topNames;
+        this.topCounts = topCounts;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Number of times an alarm changed to an active state or escalated to a
+     * state that needs a new acknowledge, without shelved alarms.
+     *
+     * @return number of annunciations
+     */
+    public long getAnnunciations() {
+        return annunciations;
+    }
+
+    /**
+     * Number of annunciations which were shelved due to an alarm flood.
+     *
+     * @return number of shelved annunciations
+     */
+    public long getShelvedAnnunciations() {
+        return shelvedAnnunciations;
+    }
+
+    /**
+     * Number of alarms which are active at the time of the report.
+     *
+     * @return number of standing alarms
+     */
+    public int getStandingCount() {
+        return standingCount;
+    }
+
+    /**
+     * Number of alarms which are active for longer than the stale time.
+     *
+     * @return number of stale alarms
+     */
+    public int getStaleCount() {
+        return staleCount;
+    }
+
+    /**
+     * Average number of annunciations per rate interval and operator.
+     *
+     * @return average alarm rate
+     */
+    public double getAverageRate() {
+        return averageRate;
+    }
+
+    /**
+     * Highest number of annunciations in one rate interval per operator.
+     *
+     * @return maximum alarm rate
+     */
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Percentage of completed rate intervals with more than FLOOD_RATE
+     * annunciations per operator.
+     *
+     * @return percentage from 0 to 100
+     */
+    public double getFloodPercentage() {
+        return floodPercentage;
+    }
+
+    /**
+     * Number of alarms that were detected chattering at least once.
+     *
+     * @return number of chattering alarms
+     */
+    public int getChatteringCount() {
+        return chatteringCount;
+    }
+
+    public long getChatterEvents() {
+        return chatterEvents;
+    }
+
+    /**
+     * Average time from activation to clearing of all cleared alarms.
+     *
+     * @return time in units of the time source
+     */
+    public long getAverageTimeInAlarm() {
+        return averageTimeInAlarm;
+    }
+
+    public long getMaxTimeInAlarm() {
+        return maxTimeInAlarm;
+    }
+
+    /**
+     * Names of the most frequent alarms, up to ten, most frequent first.
+     *
+     * @return array of alarm names
+     */
+    public String[] getTopNames() {
+        return topNames.clone();
+    }
+
+    /**
+     * Number of annunciations of the alarms of getTopNames.
+     *
+     * @return array of counts
+     */
+    public long[] getTopCounts() {
+        return topCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Alarm KPI report at ").append(time).append('\n');
+        sb.append("Annunciations: ").append(annunciations)
+                .append(", shelved: ").append(shelvedAnnunciations)
+                .append(", standing: ").append(standingCount)
+                .append(", stale: ").append(staleCount).append('\n');
+        sb.append(String.format("Rate per interval and operator: "
+                + "average %.2f, max %.2f, flood intervals %.1f %%%n",
+                averageRate, maxRate, floodPercentage));
+        sb.append("Chattering alarms: ").append(chatteringCount)
+                .append(", chatter events: ").append(chatterEvents)
+                .append('\n');
+        sb.append("Time in alarm: average ").append(averageTimeInAlarm)
+                .append(", max ").append(maxTimeInAlarm).append('\n');
+        for (int idx = 0; idx < topNames.length; idx++) {
+            sb.append("  ").append(topCounts[idx]).append(' ')
+                    .append(topNames[idx]).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * ListModel for a swing JList that displays the alarms of an AlarmManager.
+ * <p>
+ * The model holds the latest AlarmSnapshot. Calling update on the event
+ * dispatch thread, for example from a swing Timer, takes the newest published
+ * snapshot without locking the AlarmManager. Entries of unchanged alarms are
+ * the same instances in both snapshots, so only the range between the
+ * unchanged start and end of the list is reported as changed and only those
+ * rows get repainted.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmListModel extends AbstractListModel<AlarmEntry> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AlarmManager alarmManager;
+    private AlarmSnapshot snapshot = AlarmSnapshot.EMPTY;
+
+    public AlarmListModel(AlarmManager alarmManager) {
+        this.alarmManager = alarmManager;
+    }
+
+    @Override
+    public int getSize() {
+        return snapshot.size();
+    }
+
+    @Override
+    public AlarmEntry getElementAt(int index) {
+        return snapshot.get(index);
+    }
+
+    /**
+     * Takes the latest snapshot from the AlarmManager and fires the events
+     * for the rows that changed. Has to be called on the event dispatch
+     * thread.
+     */
+    public void update() {
+        AlarmSnapshot next = alarmManager.getSnapshot();
+        AlarmSnapshot prev = snapshot;
+        if (next.getVersion() == prev.getVersion()) {
+            return;
+        }
+        int prevSize = prev.size();
+        int nextSize = next.size();
+        int start = 0;
+        while (start < prevSize && start < nextSize
+                && prev.get(start) == next.get(start)) {
+            start++;
+        }
+        int end = 0;
+        while (end < prevSize - start && end < nextSize - start
+                && prev.get(prevSize - 1 - end)
+                == next.get(nextSize - 1 - end)) {
+            end++;
+        }
+        int prevChanged = prevSize - start - end;
+        int nextChanged = nextSize - start - end;
+        snapshot = next;
+        int common = Math.min(prevChanged, nextChanged);
+        if (common > 0) {
+            fireContentsChanged(this, start, start + common - 1);
+        }
+        if (prevChanged > nextChanged) {
+            fireIntervalRemoved(this, start + common,
+                    start + prevChanged - 1);
+        } else if (nextChanged > prevChanged) {
+            fireIntervalAdded(this, start + common,
+                    start + nextChanged - 1);
+        }
+    }
+
+    public AlarmSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
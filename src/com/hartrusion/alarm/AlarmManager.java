@@ -23,10 +23,23 @@
  */
 package com.hartrusion.alarm;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.DefaultListModel;
@@ -34,18 +47,127 @@ import javax.swing.DefaultListModel;
 /**
  * Holds all active alarm objects. It manages those objects by itself, meaning
  * it also generates the alarm objects if they do not exist yest.
+ * <p>
+ * Alarms are fired by the simulation thread. To display them, the simulation
+ * thread calls publishSnapshot after each step, which creates a new immutable
+ * AlarmSnapshot if anything has changed. Other threads get the latest one
+ * with getSnapshot without any locking, AlarmListModel uses this to show the
+ * alarms in a swing JList.
+ * <p>
+ * Each alarm transition and acknowledge can be recorded to an AlarmJournal
+ * which writes them to a file in the background. Log messages are only
+ * written with level FINE.
+ * <p>
+ * Flood detection can be enabled to count the new alarms within a sliding
+ * time window. If there are more than the defined number, the manager is in
+ * flood state: new alarms with a priority rank lower than the defined one
+ * are shelved instead of being put to the alarm list. Alarms which are in the
+ * list already stay there. The flood state ends if the number of new alarms
+ * in the window drops to half of the threshold, all shelved alarms which are
+ * still active or unacknowledged are put to the alarm list then. Changes of
+ * the flood state are fired as PropertyChangeEvent with the name AlarmFlood.
+ * All transitions are counted and recorded to the journal, shelved or not.
+ * <p>
+ * Alarms can be organized in a tree of AlarmGroups, each group knows the
+ * worst state and the number of unacknowledged alarms of all its members.
+ * Groups are either defined by a name prefix, like the names which are built
+ * by the initName methods, or declared with an explicit parent and explicit
+ * members. The root group contains all alarms.
+ * <p>
+ * Alarm performance indicators like the alarm rate, standing and chattering
+ * alarms are updated with each transition, see AlarmKpi.
  *
  * @author Viktor Alexander Hartung
  */
 public class AlarmManager {
 
+    private static final Logger LOGGER = Logger.getLogger(
+            AlarmManager.class.getName());
+
     private final Map<String, AlarmObject> alarmObjects
             = new ConcurrentHashMap<>();
 
     /**
-     * A list that contains all active alarms
+     * Orders alarms by priority first, alarms with the same priority are
+     * ordered with the newest state change first.
+     */
+    private static final Comparator<AlarmObject> ORDER = (a, b) -> {
+        int cmp = Integer.compare(ComparePriority.rank(b.getState()),
+                ComparePriority.rank(a.getState()));
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Long.compare(b.getSequence(), a.getSequence());
+    };
+
+    /**
+     * Contains all alarms which are active or not yet acknowledged, ordered
+     * by priority and time. The sort key of an alarm object must only be
+     * changed while it is not part of this set.
+     */
+    private final NavigableSet<AlarmObject> activeAlarms = new TreeSet<>(ORDER);
+
+    private long sequence;
+
+    /**
+     * True if the alarm list has changed since the last published snapshot.
+     */
+    private boolean modified;
+
+    private volatile AlarmSnapshot snapshot = AlarmSnapshot.EMPTY;
+
+    /**
+     * Provides the time for journal records, milliseconds since epoch by
+     * default.
+     */
+    private LongSupplier timeSource = System::currentTimeMillis;
+
+    private AlarmJournal journal;
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
+
+    /**
+     * Alarms which are active or unacknowledged but were not put to the
+     * alarm list due to an alarm flood.
+     */
+    private final Set<AlarmObject> shelvedAlarms = new HashSet<>();
+
+    /**
+     * Flood detection: times of the latest new alarms as ring buffer, the
+     * window length in time units of the time source, the number of new
+     * alarms in the window which starts a flood (0 disables the detection)
+     * and the minimum rank that is not shelved.
+     */
+    private long[] floodTimes = new long[0];
+    private int floodHead, floodSize;
+    private long floodWindow;
+    private int floodThreshold;
+    private int shelveRank;
+    private boolean flood;
+
+    /**
+     * Flood state changes which were not fired to the listeners yet.
+     */
+    private final Queue<Boolean> floodEvents = new ArrayDeque<>();
+    private final Object floodEventLock = new Object();
+
+    /**
+     * Root of the group tree, a prefix group with an empty name which
+     * matches all alarms.
+     */
+    private final AlarmGroup rootGroup = new AlarmGroup("", true);
+    private final Map<String, AlarmGroup> groups = new HashMap<>();
+
+    /**
+     * Alarms which were assigned to a group explicitly, by alarm name.
      */
-    private final List<AlarmObject> alarmList = new ArrayList<>();
+    private final Map<String, AlarmGroup> groupAssignments = new HashMap<>();
+
+    private final AlarmKpi kpi = new AlarmKpi();
+
+    private long transitionCount;
+    private long shelvedTransitionCount;
+    private long floodCount;
 
     /**
      * Sets an alarm. Can be used to update or initialize an AlarmObject.
@@ -54,18 +176,25 @@ public class AlarmManager {
      * @param state Alarm state
      * @param suppressed The alarm is suppressed
      */
-    public void fireAlarm(String component,
+    public void fireAlarm(String component, AlarmState state,
+            boolean suppressed) {
+        updateAlarm(component, state, suppressed);
+        fireFloodEvents();
+    }
+
+    private synchronized void updateAlarm(String component,
             AlarmState state, boolean suppressed) {
-        AlarmObject a;
-        // If the alarm object was not initialized before, create a new one.
-        if (!alarmObjects.containsKey(component)) {
-            a = new AlarmObject(component);
-            alarmObjects.put(a.getComponent(), a);
-        } else {
-            a = alarmObjects.get(component);
-        }
+        AlarmObject a = getAlarmObject(component);
 
         AlarmState oldState = a.getState();
+        // Take the object out of the sorted set before its sort key changes.
+        boolean listed = activeAlarms.remove(a);
+        if (oldState != null) {
+            a.getGroup().update(oldState, a.isAcknowledged(), -1);
+        }
+        if (oldState != state) {
+            a.setSequence(++sequence);
+        }
         a.setState(state);
         a.setSuppressed(suppressed);
         
@@ -85,15 +214,42 @@ public class AlarmManager {
             // State switched to none - new acknowledge is necessary to clear.
             a.setAcknowledged(false);
         }
-        
-
-        // Log all alarm events
-        Logger.getLogger(AlarmManager.class.getName())
-                .log(Level.INFO, "Updated Alarm: " + component
-                        + ", Old state: " + oldState
-                        + ", New state: " + state);
+        a.getGroup().update(state, a.isAcknowledged(), 1);
+        long now = timeSource.getAsLong();
+        if (oldState != state) {
+            transitionCount++;
+        }
+        if (state != AlarmState.NONE && oldState != state
+                && floodThreshold > 0) {
+            addFloodEvent(now);
+        }
+        boolean shelved = false;
+        if (state == AlarmState.NONE && a.isAcknowledged()) {
+            shelvedAlarms.remove(a);
+        } else if (!listed && flood
+                && ComparePriority.rank(state) < shelveRank) {
+            shelvedAlarms.add(a);
+            shelvedTransitionCount++;
+            shelved = true;
+        } else {
+            shelvedAlarms.remove(a);
+            activeAlarms.add(a);
+        }
+        if (oldState != state) {
+            kpi.update(a, oldState, state, shelved, now);
+        }
+        modified = true;
 
-        updateAlarmList(); // why did i even do this
+        // Record all alarm events
+        if (journal != null) {
+            journal.record(now, component, oldState, state, suppressed,
+                    a.isAcknowledged());
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE,
+                    "Updated Alarm: {0}, Old state: {1}, New state: {2}",
+                    new Object[]{component, oldState, state});
+        }
     }
 
     /**
@@ -107,43 +263,502 @@ public class AlarmManager {
      * @return true if the alarm with given or higher priority state is active.
      */
     public boolean isAlarmActive(String component, AlarmState state) {
-        if (!alarmObjects.containsKey(component)) {
-            return false; // an unknown alarm can not be active.
-        }
         AlarmObject alarmObject = alarmObjects.get(component);
-        // Those to states require strict compare.
-        if (state == AlarmState.NONE
-                || state == AlarmState.ACTIVE) {
-            return alarmObject.getState() == state;
+        if (alarmObject == null) {
+            return false; // an unknown alarm can not be active.
         }
-        // is there an alarm active at all? 
-        if (alarmObject.getState() == AlarmState.NONE) {
-            return false;
+        return ComparePriority.isActive(alarmObject.getState(), state);
+    }
+
+    /**
+     * Returns a reference to an alarm which can be used for frequent checks,
+     * for example in interlocks, without looking up the alarm by its name on
+     * each check. The alarm does not need to be fired before, an alarm that
+     * was never fired is not active.
+     *
+     * @param component String to identify the alarm object
+     * @return AlarmReference
+     */
+    public synchronized AlarmReference getReference(String component) {
+        return new AlarmReference(getAlarmObject(component));
+    }
+
+    /**
+     * Returns the alarm object with the given name, it will be created if it
+     * does not exist yet.
+     */
+    private AlarmObject getAlarmObject(String component) {
+        AlarmObject a = alarmObjects.get(component);
+        // If the alarm object was not initialized before, create a new one.
+        if (a == null) {
+            a = new AlarmObject(component, this);
+            a.setGroup(resolveGroup(component));
+            alarmObjects.put(a.getComponent(), a);
         }
-        // check if equals or even a higher priority is active. 
-        return ComparePriority.includes(alarmObject.getState(), state);
+        return a;
     }
     
-    public void acknowledge() {
-        for (AlarmObject a : alarmObjects.values()) {
-            a.setAcknowledged(true);
+    /**
+     * Sets the text which is displayed for an alarm in the alarm list.
+     *
+     * @param component Name of the alarm, it will be created if it does not
+     * exist yet.
+     * @param description Text or null to display the component name.
+     */
+    public synchronized void setDescription(String component,
+            String description) {
+        setDescription(getAlarmObject(component), description);
+    }
+
+    synchronized void setDescription(AlarmObject a, String description) {
+        a.updateDescription(description);
+        if (activeAlarms.contains(a)) {
+            modified = true;
         }
     }
 
     /**
-     * Updates the contents of the alarm list which can be displayed in a swing
-     * JList.
+     * Acknowledges all alarms, including the ones which are shelved due to an
+     * alarm flood. Alarms which are not active anymore will be removed from
+     * the alarm list. Alarm objects that are neither part of the alarm list
+     * nor shelved are acknowledged already.
      */
-    public void updateAlarmList() {
-        // not sure what I'm doing - TODO check this later
+    public synchronized void acknowledge() {
+        Iterator<AlarmObject> it = activeAlarms.iterator();
+        while (it.hasNext()) {
+            AlarmObject a = it.next();
+            acknowledge(a);
+            if (a.getState() == AlarmState.NONE) {
+                it.remove();
+                modified = true;
+            }
+        }
+        it = shelvedAlarms.iterator();
+        while (it.hasNext()) {
+            AlarmObject a = it.next();
+            acknowledge(a);
+            if (a.getState() == AlarmState.NONE) {
+                it.remove();
+                modified = true; // shelved count is part of the snapshot
+            }
+        }
+    }
+
+    private void acknowledge(AlarmObject a) {
+        if (a.isAcknowledged()) {
+            return;
+        }
+        a.getGroup().update(a.getState(), false, -1);
+        a.setAcknowledged(true);
+        a.getGroup().update(a.getState(), true, 1);
+        modified = true;
+        if (journal != null) {
+            journal.record(timeSource.getAsLong(), a.getComponent(),
+                    a.getState(), a.getState(), a.isSuppressed(), true);
+        }
+    }
+
+    /**
+     * Publishes the current alarm list as a new snapshot if there were any
+     * changes since the last call. Intended to be called once after each
+     * simulation step. Entries of alarms that did not change are taken over
+     * to the new snapshot as the same instances.
+     *
+     * @return the latest AlarmSnapshot
+     */
+    public AlarmSnapshot publishSnapshot() {
+        AlarmSnapshot s = createSnapshot();
+        fireFloodEvents();
+        return s;
+    }
+
+    private synchronized AlarmSnapshot createSnapshot() {
+        if (flood) {
+            updateFlood(timeSource.getAsLong());
+        }
+        if (!modified) {
+            return snapshot;
+        }
+        modified = false;
+        List<AlarmEntry> entries = new ArrayList<>(activeAlarms.size());
+        for (AlarmObject a : activeAlarms) {
+            entries.add(a.getEntry());
+        }
+        snapshot = new AlarmSnapshot(snapshot.getVersion() + 1,
+                Collections.unmodifiableList(entries), flood,
+                shelvedAlarms.size());
+        return snapshot;
+    }
+
+    /**
+     * Enables the flood detection.
+     *
+     * @param window Length of the sliding window in time units of the time
+     * source, milliseconds by default.
+     * @param threshold Number of new alarms within the window which start a
+     * flood, 0 disables the flood detection.
+     * @param shelveRank During a flood, new alarms with a lower rank than
+     * this are shelved. See ComparePriority.rank, 3 shelves all alarms
+     * except MAX1, MIN1, MAX2 and MIN2.
+     */
+    public void setFloodDetection(long window, int threshold,
+            int shelveRank) {
+        updateFloodDetection(window, threshold, shelveRank);
+        fireFloodEvents();
+    }
+
+    private synchronized void updateFloodDetection(long window,
+            int threshold, int shelveRank) {
+        if (window <= 0 || threshold < 0) {
+            throw new IllegalArgumentException(
+                    "window must be positive and threshold not negative.");
+        }
+        floodWindow = window;
+        floodThreshold = threshold;
+        this.shelveRank = shelveRank;
+        floodTimes = new long[threshold + 1];
+        floodHead = 0;
+        floodSize = 0;
+        if (flood) {
+            setFlood(false);
+        }
+    }
+
+    private void addFloodEvent(long now) {
+        if (floodSize == floodTimes.length) {
+            // Only threshold + 1 events are needed to detect the flood.
+            floodHead = (floodHead + 1) % floodTimes.length;
+            floodSize--;
+        }
+        floodTimes[(floodHead + floodSize) % floodTimes.length] = now;
+        floodSize++;
+        updateFlood(now);
+    }
+
+    private void updateFlood(long now) {
+        while (floodSize > 0 && floodTimes[floodHead] <= now - floodWindow) {
+            floodHead = (floodHead + 1) % floodTimes.length;
+            floodSize--;
+        }
+        if (!flood && floodSize > floodThreshold) {
+            setFlood(true);
+        } else if (flood && floodSize <= floodThreshold / 2) {
+            setFlood(false);
+        }
+    }
+
+    private void setFlood(boolean flood) {
+        this.flood = flood;
+        if (flood) {
+            floodCount++;
+        } else {
+            // Unshelve everything that was kept back during the flood.
+            activeAlarms.addAll(shelvedAlarms);
+            shelvedAlarms.clear();
+        }
+        modified = true;
+        LOGGER.log(Level.FINE, "Alarm flood state: {0}", flood);
+        floodEvents.add(flood);
+    }
+
+    /**
+     * Fires the flood changes which were recorded while holding the lock of
+     * the manager. Must be called without holding that lock, so listeners can
+     * call the manager. The event lock keeps the order of the events if
+     * multiple threads fire alarms.
+     */
+    private void fireFloodEvents() {
+        synchronized (floodEventLock) {
+            while (true) {
+                Boolean change;
+                synchronized (this) {
+                    change = floodEvents.poll();
+                }
+                if (change == null) {
+                    return;
+                }
+                pcs.firePropertyChange("AlarmFlood", !change, (boolean) change);
+            }
+        }
+    }
+
+    /**
+     * Defines a group which contains all alarms whose names start with the
+     * given prefix. Its parent is the group with the longest prefix that is
+     * part of this prefix, or the root group. Groups should be defined before
+     * the alarms are fired, defining groups later requires sorting all
+     * existing alarms into the groups again.
+     *
+     * @param prefix Start of the alarm names, also the name of the group.
+     * @return the AlarmGroup
+     */
+    public synchronized AlarmGroup defineGroup(String prefix) {
+        AlarmGroup group = groups.get(prefix);
+        if (group != null) {
+            if (!group.isPrefix()) {
+                throw new IllegalArgumentException("Group " + prefix
+                        + " was already defined without prefix.");
+            }
+            return group;
+        }
+        if (prefix.isEmpty()) {
+            return rootGroup;
+        }
+        group = new AlarmGroup(prefix, true);
+        groups.put(prefix, group);
+        rebuildGroups();
+        return group;
+    }
+
+    /**
+     * Defines a group with an explicit parent group. Alarms have to be added
+     * to this group with addToGroup.
+     *
+     * @param name Name of the group.
+     * @param parent Name of the parent group, null for the root group.
+     * @return the AlarmGroup
+     */
+    public synchronized AlarmGroup defineGroup(String name, String parent) {
+        if (groups.containsKey(name) || name.isEmpty()) {
+            throw new IllegalArgumentException("Group " + name
+                    + " was already defined.");
+        }
+        AlarmGroup parentGroup = parent == null ? rootGroup : getGroup(parent);
+        if (parentGroup == null) {
+            throw new IllegalArgumentException("Unknown group " + parent);
+        }
+        AlarmGroup group = new AlarmGroup(name, false);
+        group.setParent(parentGroup, true);
+        groups.put(name, group);
+        return group;
+    }
+
+    /**
+     * Assigns an alarm to a group, regardless of its name.
+     *
+     * @param component Name of the alarm.
+     * @param group Name of the group.
+     */
+    public synchronized void addToGroup(String component, String group) {
+        AlarmGroup g = getGroup(group);
+        if (g == null) {
+            throw new IllegalArgumentException("Unknown group " + group);
+        }
+        groupAssignments.put(component, g);
+        AlarmObject a = alarmObjects.get(component);
+        if (a != null && a.getGroup() != g) {
+            if (a.getState() != null) {
+                a.getGroup().update(a.getState(), a.isAcknowledged(), -1);
+                g.update(a.getState(), a.isAcknowledged(), 1);
+            }
+            a.setGroup(g);
+        }
+    }
+
+    /**
+     * Returns a group by its name.
+     *
+     * @param name Name of the group, an empty String for the root group.
+     * @return AlarmGroup or null if no such group was defined.
+     */
+    public synchronized AlarmGroup getGroup(String name) {
+        if (name.isEmpty()) {
+            return rootGroup;
+        }
+        return groups.get(name);
+    }
+
+    /**
+     * Returns the group which contains all alarms.
+     *
+     * @return root AlarmGroup
+     */
+    public AlarmGroup getRootGroup() {
+        return rootGroup;
+    }
+
+    private AlarmGroup resolveGroup(String component) {
+        AlarmGroup group = groupAssignments.get(component);
+        if (group != null) {
+            return group;
+        }
+        group = rootGroup;
+        for (AlarmGroup g : groups.values()) {
+            if (g.matches(component)
+                    && g.getName().length() > group.getName().length()) {
+                group = g;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Sets the parents of all prefix groups and sorts all alarms into the
+     * groups again, with new counts.
+     */
+    private void rebuildGroups() {
+        for (AlarmGroup g : groups.values()) {
+            if (!g.isPrefix() || g.hasExplicitParent()) {
+                continue;
+            }
+            AlarmGroup parent = rootGroup;
+            for (AlarmGroup p : groups.values()) {
+                if (p != g && p.matches(g.getName())
+                        && p.getName().length() > parent.getName().length()) {
+                    parent = p;
+                }
+            }
+            if (g.getParent() != parent) {
+                g.setParent(parent, false);
+            }
+        }
+        rootGroup.clear();
+        for (AlarmGroup g : groups.values()) {
+            g.clear();
+        }
         for (AlarmObject a : alarmObjects.values()) {
-            if (!alarmList.contains(a)) {
-                alarmList.add(a);
+            a.setGroup(resolveGroup(a.getComponent()));
+            if (a.getState() != null) {
+                a.getGroup().update(a.getState(), a.isAcknowledged(), 1);
             }
         }
     }
 
-    public List getAlarmList() {
-        return alarmList;
+    /**
+     * Returns the alarm performance indicators, which can be configured with
+     * the returned object. Configuration should be done before alarms are
+     * fired.
+     *
+     * @return AlarmKpi of this manager
+     */
+    public AlarmKpi getKpi() {
+        return kpi;
+    }
+
+    /**
+     * Creates a report of the alarm performance indicators at the current
+     * time of the time source.
+     *
+     * @return AlarmKpiReport
+     */
+    public synchronized AlarmKpiReport createKpiReport() {
+        return kpi.createReport(alarmObjects.values(),
+                timeSource.getAsLong());
+    }
+
+    /**
+     * Returns true while there is an alarm flood. Consumers can use this to
+     * switch to a summary view.
+     *
+     * @return true during an alarm flood.
+     */
+    public synchronized boolean isFlood() {
+        return flood;
+    }
+
+    /**
+     * Number of alarms which are shelved at the moment.
+     *
+     * @return number of shelved alarms.
+     */
+    public synchronized int getShelvedCount() {
+        return shelvedAlarms.size();
+    }
+
+    /**
+     * Number of all state changes of all alarms since the creation of the
+     * manager.
+     *
+     * @return number of state changes.
+     */
+    public synchronized long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * Number of alarm events which were shelved due to a flood.
+     *
+     * @return number of shelved events.
+     */
+    public synchronized long getShelvedTransitionCount() {
+        return shelvedTransitionCount;
+    }
+
+    /**
+     * Number of floods which were detected.
+     *
+     * @return number of floods.
+     */
+    public synchronized long getFloodCount() {
+        return floodCount;
+    }
+
+    /**
+     * Adds a listener for the AlarmFlood event. Listeners are called on the
+     * thread which fires the alarms or publishes the snapshot.
+     *
+     * @param l The property change listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener l) {
+        pcs.addPropertyChangeListener(l);
+    }
+
+    /**
+     * Sets a journal which will get all alarm transitions and acknowledges.
+     * The journal has to be started by the caller.
+     *
+     * @param journal AlarmJournal or null to stop recording.
+     */
+    public synchronized void setJournal(AlarmJournal journal) {
+        this.journal = journal;
+    }
+
+    public synchronized AlarmJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the source of the time values that are written to the journal.
+     * Can be used to record simulation time instead of wall clock time.
+     *
+     * @param timeSource LongSupplier, for example System::currentTimeMillis
+     * or the SimulationClock of the simulation.
+     */
+    public synchronized void setTimeSource(LongSupplier timeSource) {
+        if (timeSource == null) {
+            throw new IllegalArgumentException("timeSource must not be null.");
+        }
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * Returns the latest published alarm snapshot. Does not lock and can be
+     * called from any thread.
+     *
+     * @return AlarmSnapshot, empty if nothing was published yet.
+     */
+    public AlarmSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns all alarms which are active or not acknowledged yet, ordered by
+     * priority and with the newest alarm first for the same priority. The
+     * list is a copy, but the alarm objects are the ones which are modified
+     * by the simulation. Use getSnapshot to read alarms from other threads.
+     *
+     * @return List of AlarmObject
+     */
+    public synchronized List<AlarmObject> getAlarmList() {
+        return new ArrayList<>(activeAlarms);
+    }
+
+    /**
+     * Returns the number of alarms which are active or not acknowledged yet.
+     *
+     * @return Number of entries in the alarm list.
+     */
+    public synchronized int getAlarmCount() {
+        return activeAlarms.size();
     }
 }
@@ -0,0 +1,410 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Evaluates a large number of value alarm monitors in one loop. Behaves like
+ * one ValueAlarmMonitor per added monitor, but keeps the thresholds, inputs
+ * and states of all monitors in arrays, one array per alarm state, instead of
+ * one object per monitor.
+ * <p>
+ * A threshold which is not defined is NaN, any compare with NaN is false, so
+ * the states are determined without checking for enabled thresholds. The
+ * thresholds are checked from the lowest to the highest priority and each
+ * match overwrites the previous one, which gives the same result as the
+ * if-cascade in ValueAlarmMonitor and can be compiled to conditional moves.
+ * <p>
+ * The first loop only collects the monitors which changed their state. For
+ * those, the AlarmManager gets the alarm, AlarmActions are run if the new
+ * state has a higher priority than the previous one, and a PropertyChangeEvent
+ * with the name monitorName + "_AlarmState" is fired, exactly as the
+ * ValueAlarmMonitor does. Deadbands and delays of ValueAlarmMonitor are not
+ * available in the bank.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AlarmMonitorBank implements Runnable {
+
+    private static final AlarmState[] STATES = AlarmState.values();
+    private static final byte NO_STATE = -1;
+    private static final byte MAX2 = (byte) AlarmState.MAX2.ordinal();
+    private static final byte MAX1 = (byte) AlarmState.MAX1.ordinal();
+    private static final byte HIGH2 = (byte) AlarmState.HIGH2.ordinal();
+    private static final byte HIGH1 = (byte) AlarmState.HIGH1.ordinal();
+    private static final byte NONE = (byte) AlarmState.NONE.ordinal();
+    private static final byte LOW1 = (byte) AlarmState.LOW1.ordinal();
+    private static final byte LOW2 = (byte) AlarmState.LOW2.ordinal();
+    private static final byte MIN1 = (byte) AlarmState.MIN1.ordinal();
+    private static final byte MIN2 = (byte) AlarmState.MIN2.ordinal();
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
+
+    private AlarmManager alarmManager;
+
+    private AlarmActionDispatcher actionDispatcher
+            = AlarmActionDispatcher.getDefault();
+
+    private int size;
+    private String[] names = new String[16];
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private double[] values = new double[16];
+    private DoubleSupplier[] inputProviders = new DoubleSupplier[16];
+    private boolean[] suppressed = new boolean[16];
+    private BooleanSupplier[] suppressionProviders = new BooleanSupplier[16];
+
+    // Thresholds, NaN if not defined.
+    private double[] max2 = nanArray(16);
+    private double[] max1 = nanArray(16);
+    private double[] high2 = nanArray(16);
+    private double[] high1 = nanArray(16);
+    private double[] low1 = nanArray(16);
+    private double[] low2 = nanArray(16);
+    private double[] min1 = nanArray(16);
+    private double[] min2 = nanArray(16);
+
+    /**
+     * Alarm state ordinal of each monitor, NO_STATE before the first run.
+     */
+    private byte[] states = filledArray(16);
+
+    private AlarmAction[][] actions = new AlarmAction[16][];
+
+    /**
+     * Indexes of the monitors which changed their state in the last run and
+     * their previous state.
+     */
+    private int[] changed = new int[16];
+    private byte[] changedFrom = new byte[16];
+    private int changedCount;
+
+    private static double[] nanArray(int length) {
+        double[] a = new double[length];
+        Arrays.fill(a, Double.NaN);
+        return a;
+    }
+
+    private static byte[] filledArray(int length) {
+        byte[] a = new byte[length];
+        Arrays.fill(a, NO_STATE);
+        return a;
+    }
+
+    /**
+     * Adds a new monitor to the bank.
+     *
+     * @param name Name of the monitor, used for the AlarmManager and the
+     * PropertyChangeEvents.
+     * @return index of the monitor in this bank.
+     */
+    public int addMonitor(String name) {
+        if (indexes.containsKey(name)) {
+            throw new IllegalArgumentException("Monitor with this name "
+                    + "was already added.");
+        }
+        if (size == names.length) {
+            grow(size * 2);
+        }
+        names[size] = name;
+        indexes.put(name, size);
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        names = Arrays.copyOf(names, capacity);
+        values = Arrays.copyOf(values, capacity);
+        inputProviders = Arrays.copyOf(inputProviders, capacity);
+        suppressed = Arrays.copyOf(suppressed, capacity);
+        suppressionProviders = Arrays.copyOf(suppressionProviders, capacity);
+        max2 = growNan(max2, capacity);
+        max1 = growNan(max1, capacity);
+        high2 = growNan(high2, capacity);
+        high1 = growNan(high1, capacity);
+        low1 = growNan(low1, capacity);
+        low2 = growNan(low2, capacity);
+        min1 = growNan(min1, capacity);
+        min2 = growNan(min2, capacity);
+        int oldLength = states.length;
+        states = Arrays.copyOf(states, capacity);
+        Arrays.fill(states, oldLength, capacity, NO_STATE);
+        actions = Arrays.copyOf(actions, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+        changedFrom = Arrays.copyOf(changedFrom, capacity);
+    }
+
+    private static double[] growNan(double[] a, int capacity) {
+        int oldLength = a.length;
+        a = Arrays.copyOf(a, capacity);
+        Arrays.fill(a, oldLength, capacity, Double.NaN);
+        return a;
+    }
+
+    /**
+     * Returns the index of a monitor.
+     *
+     * @param name Name of the monitor.
+     * @return index or -1 if there is no monitor with this name.
+     */
+    public int getIndex(String name) {
+        Integer idx = indexes.get(name);
+        return idx == null ? -1 : idx;
+    }
+
+    public String getName(int monitor) {
+        checkIndex(monitor);
+        return names[monitor];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Enables an alarm state with the given value.
+     *
+     * @param monitor Index of the monitor.
+     * @param value Value where the alarm should trigger.
+     * @param alarmState State of the alarm which has to be set (MAX2, MIN,..)
+     */
+    public void defineAlarm(int monitor, double value,
+            AlarmState alarmState) {
+        checkIndex(monitor);
+        thresholds(alarmState)[monitor] = value;
+    }
+
+    private double[] thresholds(AlarmState alarmState) {
+        return switch (alarmState) {
+            case MAX2 ->
+                max2;
+            case MAX1 ->
+                max1;
+            case HIGH2 ->
+                high2;
+            case HIGH1 ->
+                high1;
+            case LOW1 ->
+                low1;
+            case LOW2 ->
+                low2;
+            case MIN1 ->
+                min1;
+            case MIN2 ->
+                min2;
+            default ->
+                throw new IllegalArgumentException(
+                        "No threshold for state " + alarmState);
+        };
+    }
+
+    public void setInput(int monitor, double value) {
+        checkIndex(monitor);
+        values[monitor] = value;
+    }
+
+    /**
+     * Attaches an instance that provides the input value of a monitor on each
+     * run, like ThresholdMonitor.addInputProvider.
+     *
+     * @param monitor Index of the monitor.
+     * @param inputProvider Instance that will provide input value.
+     */
+    public void addInputProvider(int monitor, DoubleSupplier inputProvider) {
+        checkIndex(monitor);
+        inputProviders[monitor] = inputProvider;
+    }
+
+    public void setSuppressed(int monitor, boolean suppressAlarm) {
+        checkIndex(monitor);
+        suppressed[monitor] = suppressAlarm;
+    }
+
+    /**
+     * Attaches an instance that provides the suppression state of a monitor
+     * on each run.
+     *
+     * @param monitor Index of the monitor.
+     * @param provider BooleanSupplier, true suppresses the alarm.
+     */
+    public void setSuppressionProvider(int monitor,
+            BooleanSupplier provider) {
+        checkIndex(monitor);
+        suppressionProviders[monitor] = provider;
+    }
+
+    /**
+     * Sets the dispatcher which runs the alarm actions. If none is set, the
+     * shared default dispatcher is used.
+     *
+     * @param dispatcher AlarmActionDispatcher
+     */
+    public void setActionDispatcher(AlarmActionDispatcher dispatcher) {
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("dispatcher must not be null.");
+        }
+        actionDispatcher = dispatcher;
+    }
+
+    public void addAlarmAction(int monitor, AlarmAction alarmAction) {
+        checkIndex(monitor);
+        if (actions[monitor] == null) {
+            actions[monitor] = new AlarmAction[STATES.length];
+        }
+        int state = alarmAction.getState().ordinal();
+        if (actions[monitor][state] != null) {
+            throw new IllegalArgumentException("AlarmAction with this state "
+                    + "was already added.");
+        }
+        actions[monitor][state] = alarmAction;
+    }
+
+    /**
+     * Makes an alarm manager instance known to this bank. It will put the
+     * alarms of all monitors automatically to this alarm manager.
+     *
+     * @param am AlarmManager instance
+     */
+    public void registerAlarmManager(AlarmManager am) {
+        alarmManager = am;
+    }
+
+    /**
+     * Adds a listener for events of all monitors in this bank.
+     *
+     * @param l The property change listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener l) {
+        pcs.addPropertyChangeListener(l);
+    }
+
+    /**
+     * Returns the current state of a monitor.
+     *
+     * @param monitor Index of the monitor.
+     * @return AlarmState or null if the bank did not run yet.
+     */
+    public AlarmState getAlarmState(int monitor) {
+        checkIndex(monitor);
+        return states[monitor] == NO_STATE ? null : STATES[states[monitor]];
+    }
+
+    /**
+     * Number of monitors which changed their state in the last run.
+     *
+     * @return number of transitions
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Returns the index of a monitor which changed its state in the last
+     * run.
+     *
+     * @param idx 0 to getChangedCount() - 1
+     * @return index of the monitor
+     */
+    public int getChanged(int idx) {
+        if (idx < 0 || idx >= changedCount) {
+            throw new IndexOutOfBoundsException(idx);
+        }
+        return changed[idx];
+    }
+
+    @Override
+    public void run() {
+        for (int idx = 0; idx < size; idx++) {
+            if (inputProviders[idx] != null) {
+                values[idx] = inputProviders[idx].getAsDouble();
+            }
+            if (suppressionProviders[idx] != null) {
+                suppressed[idx] = suppressionProviders[idx].getAsBoolean();
+            }
+        }
+        evaluate();
+        for (int idx = 0; idx < changedCount; idx++) {
+            fireTransition(changed[idx], changedFrom[idx]);
+        }
+    }
+
+    /**
+     * Determines the new states of all monitors and collects those which
+     * changed.
+     */
+    private void evaluate() {
+        int count = 0;
+        for (int idx = 0; idx < size; idx++) {
+            double v = values[idx];
+            byte s = NONE;
+            s = v <= low1[idx] ? LOW1 : s;
+            s = v <= low2[idx] ? LOW2 : s;
+            s = v <= min1[idx] ? MIN1 : s;
+            s = v <= min2[idx] ? MIN2 : s;
+            s = v >= high1[idx] ? HIGH1 : s;
+            s = v >= high2[idx] ? HIGH2 : s;
+            s = v >= max1[idx] ? MAX1 : s;
+            s = v >= max2[idx] ? MAX2 : s;
+            s = suppressed[idx] ? NONE : s;
+            byte old = states[idx];
+            if (s != old) {
+                changed[count] = idx;
+                changedFrom[count] = old;
+                count++;
+                states[idx] = s;
+            }
+        }
+        changedCount = count;
+    }
+
+    private void fireTransition(int monitor, byte from) {
+        AlarmState oldState = from == NO_STATE ? null : STATES[from];
+        AlarmState newState = STATES[states[monitor]];
+        if (alarmManager != null) {
+            alarmManager.fireAlarm(names[monitor], newState,
+                    suppressed[monitor]);
+        }
+        if (actions[monitor] != null
+                && ComparePriority.isEscalation(oldState, newState)) {
+            AlarmAction action = actions[monitor][newState.ordinal()];
+            if (action != null) {
+                actionDispatcher.dispatch(names[monitor], action);
+            }
+        }
+        pcs.firePropertyChange(names[monitor] + "_AlarmState",
+                oldState, newState);
+    }
+
+    private void checkIndex(int monitor) {
+        if (monitor < 0 || monitor >= size) {
+            throw new IndexOutOfBoundsException(monitor);
+        }
+    }
+}
@@ -35,8 +35,33 @@ public class AlarmObject {
     private boolean suppressed;
     private boolean acknowledged;
 
-    AlarmObject(String name) {
+    /**
+     * Increasing number of the last state change, assigned by the
+     * AlarmManager to order alarms with the same priority by time.
+     */
+    private long sequence;
+
+    /**
+     * Immutable copy of the current state, created on demand and dropped on
+     * each change.
+     */
+    private AlarmEntry entry;
+
+    /**
+     * Group of the alarm, assigned by the AlarmManager.
+     */
+    private AlarmGroup group;
+
+    private final AlarmKpi.Record kpi = new AlarmKpi.Record();
+
+    /**
+     * Manager which holds this object, gets notified of description changes.
+     */
+    private final AlarmManager manager;
+
+    AlarmObject(String name, AlarmManager manager) {
         this.component = name;
+        this.manager = manager;
     }
 
     public String getComponent() {
@@ -55,8 +80,19 @@ public class AlarmObject {
         return description;
     }
 
+    /**
+     * Sets the text which is displayed in the alarm list. The change is done
+     * through the AlarmManager, so the next published snapshot contains it.
+     *
+     * @param description Text or null to display the component name.
+     */
     public void setDescription(String description) {
+        manager.setDescription(this, description);
+    }
+
+    void updateDescription(String description) {
         this.description = description;
+        entry = null;
     }
 
     public AlarmState getState() {
@@ -65,6 +101,7 @@ public class AlarmObject {
 
     public void setState(AlarmState state) {
         this.state = state;
+        entry = null;
     }
 
     public boolean isSuppressed() {
@@ -73,6 +110,7 @@ public class AlarmObject {
 
     public void setSuppressed(boolean suppressed) {
         this.suppressed = suppressed;
+        entry = null;
     }
     
     public boolean isAcknowledged() {
@@ -81,5 +119,40 @@ public class AlarmObject {
     
     public void setAcknowledged(boolean acknowledged) {
         this.acknowledged = acknowledged;
+        entry = null;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+        entry = null;
+    }
+
+    AlarmKpi.Record getKpi() {
+        return kpi;
+    }
+
+    AlarmGroup getGroup() {
+        return group;
+    }
+
+    void setGroup(AlarmGroup group) {
+        this.group = group;
+    }
+
+    /**
+     * Returns an immutable copy of the current state. The same instance is
+     * returned until the object changes.
+     *
+     * @return AlarmEntry
+     */
+    AlarmEntry getEntry() {
+        if (entry == null) {
+            entry = new AlarmEntry(this);
+        }
+        return entry;
     }
 }
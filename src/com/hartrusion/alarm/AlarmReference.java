@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+/**
+ * Resolved reference to one alarm of an AlarmManager. It is obtained once by
+ * the name of the alarm, checking the alarm state is then only reading the
+ * state of the alarm object and a bit test in a precomputed table, which
+ * makes it suitable for interlocks that are checked on each simulation step.
+ * <p>
+ * Intended to be used by the thread which fires the alarms.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmReference {
+
+    private final AlarmObject alarmObject;
+
+    AlarmReference(AlarmObject alarmObject) {
+        this.alarmObject = alarmObject;
+    }
+
+    public String getComponent() {
+        return alarmObject.getComponent();
+    }
+
+    /**
+     * Returns the current state of the alarm.
+     *
+     * @return AlarmState or null if the alarm was never fired.
+     */
+    public AlarmState getState() {
+        return alarmObject.getState();
+    }
+
+    public boolean isAcknowledged() {
+        return alarmObject.isAcknowledged();
+    }
+
+    /**
+     * Checks if the alarm is active with the given or a higher priority
+     * state, same as AlarmManager.isAlarmActive.
+     *
+     * @param state AlarmState to check
+     * @return true if the alarm with given or higher priority state is active.
+     */
+    public boolean isActive(AlarmState state) {
+        return ComparePriority.isActive(alarmObject.getState(), state);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.alarm;
+
+import java.util.List;
+
+/**
+ * Immutable state of the alarm list, published by the AlarmManager. The
+ * version is increased with each published change, so readers can check
+ * cheaply if there is anything new.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class AlarmSnapshot {
+
+    static final AlarmSnapshot EMPTY
+            = new AlarmSnapshot(0, List.of(), false, 0);
+
+    private final long version;
+    private final List<AlarmEntry> entries;
+    private final boolean flood;
+    private final int shelvedCount;
+
+    AlarmSnapshot(long version, List<AlarmEntry> entries, boolean flood,
+            int shelvedCount) {
+        this.version = version;
+        this.entries = entries;
+        this.flood = flood;
+        this.shelvedCount = shelvedCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns all alarms which were active or not acknowledged at the time
+     * the snapshot was published, ordered like the alarm list.
+     *
+     * @return unmodifiable List of AlarmEntry
+     */
+    public List<AlarmEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns true if there was an alarm flood when the snapshot was
+     * published. During a flood, lower priority alarms are shelved and not
+     * part of the entries.
+     *
+     * @return true during an alarm flood.
+     */
+    public boolean isFlood() {
+        return flood;
+    }
+
+    /**
+     * Number of alarms that were shelved and are not part of the entries.
+     *
+     * @return number of shelved alarms.
+     */
+    public int getShelvedCount() {
+        return shelvedCount;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public AlarmEntry get(int index) {
+        return entries.get(index);
+    }
+}
@@ -29,6 +29,93 @@ package com.hartrusion.alarm;
  */
 public abstract class ComparePriority {
 
+    private static final AlarmState[] STATES = AlarmState.values();
+
+    /**
+     * Bitmask for each actual state (ordinal) with a bit set for each state
+     * (ordinal) which it includes. Resolved once from resolveIncludes.
+     */
+    private static final int[] INCLUDES = new int[STATES.length];
+
+    /**
+     * Bitmask for each actual state (ordinal + 1, 0 for null) with a bit set
+     * for each state which counts as active, see isActive.
+     */
+    private static final int[] ACTIVE = new int[STATES.length + 1];
+
+    static {
+        for (AlarmState actual : STATES) {
+            for (AlarmState toCompare : STATES) {
+                if (resolveIncludes(actual, toCompare)) {
+                    INCLUDES[actual.ordinal()] |= 1 << toCompare.ordinal();
+                }
+                boolean active;
+                if (toCompare == AlarmState.NONE
+                        || toCompare == AlarmState.ACTIVE) {
+                    active = actual == toCompare;
+                } else {
+                    active = actual != AlarmState.NONE
+                            && resolveIncludes(actual, toCompare);
+                }
+                if (active) {
+                    ACTIVE[actual.ordinal() + 1] |= 1 << toCompare.ordinal();
+                }
+            }
+        }
+    }
+
+    /**
+     * Defines if an alarm action is run when the state changes from the first
+     * index (ordinal + 1, 0 for no state) to the second one (ordinal). Those
+     * are the rules of the previous if-cascade in ValueAlarmMonitor.
+     */
+    private static final boolean[][] ESCALATION
+            = new boolean[STATES.length + 1][STATES.length];
+
+    static {
+        for (int from = 0; from <= STATES.length; from++) {
+            AlarmState old = from == 0 ? null : STATES[from - 1];
+            for (AlarmState to : STATES) {
+                ESCALATION[from][to.ordinal()] = switch (to) {
+                    case MAX2, MIN2 ->
+                        true;
+                    case MAX1 ->
+                        old == AlarmState.HIGH2 || old == AlarmState.HIGH1
+                        || old == AlarmState.NONE;
+                    case MIN1 ->
+                        old == AlarmState.LOW2 || old == AlarmState.LOW1
+                        || old == AlarmState.NONE;
+                    case HIGH2 ->
+                        old == AlarmState.HIGH1 || old == AlarmState.NONE;
+                    case LOW2 ->
+                        old == AlarmState.LOW1 || old == AlarmState.NONE;
+                    case HIGH1, LOW1 ->
+                        old == AlarmState.NONE;
+                    default ->
+                        false;
+                };
+            }
+        }
+    }
+
+    /**
+     * Checks if an AlarmAction has to be run on a state change. This is the
+     * case if the new state is of a higher priority on the same side than the
+     * old one, MAX2 and MIN2 always run their actions.
+     * <p>
+     * Note that an alarm which starts with a state other than MAX2 or MIN2
+     * right from the first check (old state is null) does not count as
+     * escalation.
+     *
+     * @param oldState Previous state, can be null.
+     * @param newState New state.
+     * @return true if actions for the new state have to be run.
+     */
+    static boolean isEscalation(AlarmState oldState, AlarmState newState) {
+        return ESCALATION[oldState == null ? 0 : oldState.ordinal() + 1]
+                [newState.ordinal()];
+    }
+
     /**
      * Compares two alarm states. Returns true if state2 has higher or same
      * priority as state1.
@@ -40,9 +127,69 @@ public abstract class ComparePriority {
      * @param actual actual state (can be the current alarm state)
      * @param toCompare state to compare (can be a state to check if it is
      * active)
-     * @return true, if state2 has a higher priority than state1
+     * @return true, if state2 has a higher priority than state1. If one of
+     * the states is null, true only if both are null.
      */
     public static boolean includes(AlarmState actual, AlarmState toCompare) {
+        if (actual == null || toCompare == null) {
+            return actual == toCompare;
+        }
+        return (INCLUDES[actual.ordinal()] & (1 << toCompare.ordinal())) != 0;
+    }
+
+    /**
+     * Checks if an alarm with the actual state counts as active for the
+     * requested state, as used by AlarmManager.isAlarmActive: NONE and ACTIVE
+     * are compared strictly, an actual state of NONE is never active for
+     * other states, otherwise the actual state has to include the requested
+     * one. An alarm which was never fired (null) is not active at all.
+     *
+     * @param actual actual state of the alarm, can be null.
+     * @param requested state to check.
+     * @return true if the requested state is active.
+     */
+    public static boolean isActive(AlarmState actual, AlarmState requested) {
+        return (ACTIVE[actual == null ? 0 : actual.ordinal() + 1]
+                & (1 << requested.ordinal())) != 0;
+    }
+
+    /**
+     * Returns a rank for sorting alarms by priority. MAX2 and MIN2 have the
+     * highest rank of 4, HIGH1, LOW1 and ACTIVE the lowest rank of 1. NONE
+     * and null have rank 0.
+     *
+     * @param state Alarm state, can be null.
+     * @return rank from 0 to 4, higher values mean higher priority.
+     */
+    public static int rank(AlarmState state) {
+        if (state == null) {
+            return 0;
+        }
+        switch (state) {
+            case MAX2:
+            case MIN2:
+                return 4;
+            case MAX1:
+            case MIN1:
+                return 3;
+            case HIGH2:
+            case LOW2:
+                return 2;
+            case HIGH1:
+            case LOW1:
+            case ACTIVE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Defines which states include which others, only used to build the
+     * INCLUDES and ACTIVE bitmasks.
+     */
+    private static boolean resolveIncludes(AlarmState actual,
+            AlarmState toCompare) {
         if (actual == toCompare) {
             return true;
         }
@@ -36,7 +36,13 @@ import java.util.logging.Logger;
  * If an AlarmManager is known, the alarm will be set to the AlarmManager.
  * <p>
  * Alarm events can be defined by providing an AlarmAction class, this class
- * has a run method which will be called once if the alarm is triggered.
+ * has a run method which will be called once if the alarm is triggered. The
+ * actions are run by an AlarmActionDispatcher, either synchronous or on a
+ * separate thread.
+ * <p>
+ * To prevent alarms from toggling on noisy values, each threshold can have a
+ * deadband and each state can have an on delay and an off delay, counted in
+ * checks of the value, which usually is one per simulation step.
  * <p>
  * This does not generate AlarmObjects. Purpose of this class is to monitor 
  * a value and generate alarms by observing to the value.
@@ -45,6 +51,9 @@ import java.util.logging.Logger;
  */
 public class ValueAlarmMonitor extends ThresholdMonitor {
 
+    private static final Logger LOGGER = Logger.getLogger(
+            ValueAlarmMonitor.class.getName());
+
     private final boolean[] active = new boolean[AlarmState.values().length];
     private final double[] threshold = new double[AlarmState.values().length];
 
@@ -54,8 +63,31 @@ public class ValueAlarmMonitor extends ThresholdMonitor {
 
     private AlarmState alarmState, oldAlarmState;
 
+    /**
+     * Hysteresis of each threshold: an active state is kept until the value
+     * has left the threshold by more than the deadband.
+     */
+    private final double[] deadband = new double[AlarmState.values().length];
+
+    /**
+     * Number of checks a state has to be measured before it is set (on) or
+     * before it is left (off), indexed by the state.
+     */
+    private final int[] onDelay = new int[AlarmState.values().length];
+    private final int[] offDelay = new int[AlarmState.values().length];
+
+    /**
+     * A measured state which is waiting for its delay and the number of
+     * checks it was measured in a row.
+     */
+    private AlarmState pendingState;
+    private int pendingTicks;
+
     private AlarmManager alarmManager;
 
+    private AlarmActionDispatcher actionDispatcher
+            = AlarmActionDispatcher.getDefault();
+
     /**
      * Holds alarm actions that will be called when a certain alarm state is
      * reached the first time.
@@ -64,72 +96,52 @@ public class ValueAlarmMonitor extends ThresholdMonitor {
 
     @Override
     protected void checkNewValue() {
-        // true if the changed alarm state has higher priority than the
-        // previous set state (used to fire actions)
-        boolean higherPriority = false;
-
         if (suppressionProvider != null) {
             suppressed = suppressionProvider.getAsBoolean();
         }
 
+        AlarmState measured;
         if (suppressed) {
-            alarmState = AlarmState.NONE;
-        } else if (active[AlarmState.MAX2.ordinal()]
-                && value >= threshold[AlarmState.MAX2.ordinal()]) {
-            alarmState = AlarmState.MAX2;
-            higherPriority = true;
-        } else if (active[AlarmState.MAX1.ordinal()]
-                && value >= threshold[AlarmState.MAX1.ordinal()]) {
-            alarmState = AlarmState.MAX1;
-            higherPriority = oldAlarmState == AlarmState.HIGH2
-                    || oldAlarmState == AlarmState.HIGH1
-                    || oldAlarmState == AlarmState.NONE;
-        } else if (active[AlarmState.HIGH2.ordinal()]
-                && value >= threshold[AlarmState.HIGH2.ordinal()]) {
-            alarmState = AlarmState.HIGH2;
-            higherPriority = oldAlarmState == AlarmState.HIGH1
-                    || oldAlarmState == AlarmState.NONE;
-        } else if (active[AlarmState.HIGH1.ordinal()]
-                && value >= threshold[AlarmState.HIGH1.ordinal()]) {
-            alarmState = AlarmState.HIGH1;
-            higherPriority = oldAlarmState == AlarmState.NONE;
-        } else if (active[AlarmState.MIN2.ordinal()]
-                && value <= threshold[AlarmState.MIN2.ordinal()]) {
-            alarmState = AlarmState.MIN2;
-            higherPriority = true; // min2 is the highest prio of low values.
-        } else if (active[AlarmState.MIN1.ordinal()]
-                && value <= threshold[AlarmState.MIN1.ordinal()]) {
-            alarmState = AlarmState.MIN1;
-            higherPriority = oldAlarmState == AlarmState.LOW2
-                    || oldAlarmState == AlarmState.LOW1
-                    || oldAlarmState == AlarmState.NONE;
-        } else if (active[AlarmState.LOW2.ordinal()]
-                && value <= threshold[AlarmState.LOW2.ordinal()]) {
-            alarmState = AlarmState.LOW2;
-            higherPriority = oldAlarmState == AlarmState.LOW1
-                    || oldAlarmState == AlarmState.NONE;
-        } else if (active[AlarmState.LOW1.ordinal()]
-                && value <= threshold[AlarmState.LOW1.ordinal()]) {
-            alarmState = AlarmState.LOW1;
-            higherPriority = oldAlarmState == AlarmState.NONE;
+            measured = AlarmState.NONE;
+        } else if (exceeds(AlarmState.MAX2)) {
+            measured = AlarmState.MAX2;
+        } else if (exceeds(AlarmState.MAX1)) {
+            measured = AlarmState.MAX1;
+        } else if (exceeds(AlarmState.HIGH2)) {
+            measured = AlarmState.HIGH2;
+        } else if (exceeds(AlarmState.HIGH1)) {
+            measured = AlarmState.HIGH1;
+        } else if (undercuts(AlarmState.MIN2)) {
+            measured = AlarmState.MIN2;
+        } else if (undercuts(AlarmState.MIN1)) {
+            measured = AlarmState.MIN1;
+        } else if (undercuts(AlarmState.LOW2)) {
+            measured = AlarmState.LOW2;
+        } else if (undercuts(AlarmState.LOW1)) {
+            measured = AlarmState.LOW1;
         } else {
-            alarmState = AlarmState.NONE;
+            measured = AlarmState.NONE;
         }
 
+        // Suppression takes effect immediately, other changes only after
+        // they were present for the defined delay.
+        alarmState = suppressed ? measured : applyDelay(measured);
+
         if (alarmState != oldAlarmState) {
             // If there's an alarm manager set, set the
             if (alarmManager != null) {
                 alarmManager.fireAlarm(monitorName, alarmState, suppressed);
             }
             
-            // Run assigned alarm action if there is one assigned to the state.
-            if (higherPriority) {
+            // Run assigned alarm action if there is one assigned to the state
+            // and the state has a higher priority than the previous one.
+            if (ComparePriority.isEscalation(oldAlarmState, alarmState)) {
                 if (actions.containsKey(alarmState)) {
-                    actions.get(alarmState).run();
-                    Logger.getLogger(ValueAlarmMonitor.class.getName())
-                            .log(Level.INFO, monitorName
-                                    + " called AlarmAction due to new state "
-                                    + alarmState);
+                    actionDispatcher.dispatch(monitorName,
+                            actions.get(alarmState));
+                    LOGGER.log(Level.FINE,
+                            "{0} called AlarmAction due to new state {1}",
+                            new Object[]{monitorName, alarmState});
                 }
             }
 
@@ -139,6 +151,70 @@ public class ValueAlarmMonitor extends ThresholdMonitor {
         oldAlarmState = alarmState;
     }
 
+    /**
+     * Checks a high threshold. If the state or a higher one on the same side
+     * is present, the value has to fall below the threshold minus the
+     * deadband to leave it.
+     */
+    private boolean exceeds(AlarmState state) {
+        int idx = state.ordinal();
+        return active[idx] && value >= threshold[idx]
+                - (isHolding(state) ? deadband[idx] : 0.0);
+    }
+
+    /**
+     * Checks a low threshold, the deadband is added to the threshold while
+     * the state or a higher one on the same side is present.
+     */
+    private boolean undercuts(AlarmState state) {
+        int idx = state.ordinal();
+        return active[idx] && value <= threshold[idx]
+                + (isHolding(state) ? deadband[idx] : 0.0);
+    }
+
+    private boolean isHolding(AlarmState state) {
+        return oldAlarmState != null && oldAlarmState != AlarmState.NONE
+                && ComparePriority.includes(oldAlarmState, state);
+    }
+
+    /**
+     * Returns the state which has to be set after considering the on and off
+     * delays. A state with higher priority than the current one has to be
+     * measured for onDelay ticks of the new state, otherwise the state has to
+     * be measured for offDelay ticks of the current state.
+     */
+    private AlarmState applyDelay(AlarmState measured) {
+        if (measured == oldAlarmState) {
+            pendingState = null;
+            pendingTicks = 0;
+            return measured;
+        }
+        if (measured == pendingState) {
+            pendingTicks++;
+        } else {
+            pendingState = measured;
+            pendingTicks = 1;
+        }
+        int delay;
+        if (oldAlarmState == null && measured == AlarmState.NONE) {
+            // Initial state without alarm, nothing to delay.
+            delay = 0;
+        } else if (oldAlarmState == null) {
+            delay = onDelay[measured.ordinal()];
+        } else if (ComparePriority.rank(measured)
+                > ComparePriority.rank(oldAlarmState)) {
+            delay = onDelay[measured.ordinal()];
+        } else {
+            delay = offDelay[oldAlarmState.ordinal()];
+        }
+        if (pendingTicks > delay) {
+            pendingState = null;
+            pendingTicks = 0;
+            return measured;
+        }
+        return oldAlarmState;
+    }
+
     /**
      * Sets the alarm to suppressed, this can be used if an alarm can be ignored
      * due to some other state. For example, there is no need to fire a low flow
@@ -161,6 +237,81 @@ public class ValueAlarmMonitor extends ThresholdMonitor {
         threshold[alarmState.ordinal()] = value;
     }
 
+    /**
+     * Enables an alarm state with the given value and a deadband. Once the
+     * state is present, it will only be left if the value is lower than
+     * value - deadband for high alarms or higher than value + deadband for
+     * low alarms. This prevents the alarm from toggling with each check if the
+     * value is noisy and close to the threshold.
+     *
+     * @param value Value where the alarm should trigger
+     * @param alarmState State of the alarm which has to be set (MAX2, MIN,..)
+     * @param deadband Hysteresis in the same unit as the value, positive.
+     */
+    public void defineAlarm(double value, AlarmState alarmState,
+            double deadband) {
+        setDeadband(alarmState, deadband);
+        defineAlarm(value, alarmState);
+    }
+
+    /**
+     * Sets the deadband (hysteresis) of a defined alarm state.
+     *
+     * @param alarmState State of the alarm (MAX2, MIN,..)
+     * @param deadband Hysteresis in the same unit as the value, positive.
+     */
+    public void setDeadband(AlarmState alarmState, double deadband) {
+        if (!(deadband >= 0.0)) {
+            throw new IllegalArgumentException(
+                    "deadband must not be negative.");
+        }
+        this.deadband[alarmState.ordinal()] = deadband;
+    }
+
+    /**
+     * Sets the number of checks (usually simulation steps) a state has to be
+     * present before it gets set, if it has a higher priority than the
+     * current state. Default: 0, the state is set immediately.
+     *
+     * @param alarmState State of the alarm (MAX2, MIN,..)
+     * @param ticks Number of checks to wait.
+     */
+    public void setOnDelay(AlarmState alarmState, int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("ticks must not be negative.");
+        }
+        onDelay[alarmState.ordinal()] = ticks;
+    }
+
+    /**
+     * Sets the number of checks (usually simulation steps) a state has to be
+     * absent before it gets left for a state with lower priority, including
+     * NONE. Default: 0, the state is left immediately. Suppression always
+     * takes effect immediately.
+     *
+     * @param alarmState State of the alarm (MAX2, MIN,..)
+     * @param ticks Number of checks to wait.
+     */
+    public void setOffDelay(AlarmState alarmState, int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("ticks must not be negative.");
+        }
+        offDelay[alarmState.ordinal()] = ticks;
+    }
+
+    /**
+     * Sets the same on and off delay for all alarm states.
+     *
+     * @param onTicks Checks a new alarm state has to be present.
+     * @param offTicks Checks an alarm state has to be absent.
+     */
+    public void setDelays(int onTicks, int offTicks) {
+        for (AlarmState s : AlarmState.values()) {
+            setOnDelay(s, onTicks);
+            setOffDelay(s, offTicks);
+        }
+    }
+
     /**
      * Makes an alarm manager instance known to this monitor. It will put its
      * alarms automatically to this alarm manager.
@@ -171,6 +322,19 @@ public class ValueAlarmMonitor extends ThresholdMonitor {
         alarmManager = am;
     }
 
+    /**
+     * Sets the dispatcher which runs the alarm actions. If none is set, the
+     * shared default dispatcher is used.
+     *
+     * @param dispatcher AlarmActionDispatcher
+     */
+    public void setActionDispatcher(AlarmActionDispatcher dispatcher) {
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("dispatcher must not be null.");
+        }
+        actionDispatcher = dispatcher;
+    }
+
     public void addAlarmAction(AlarmAction alarmAction) {
         if (actions.containsKey(alarmAction.getState())) {
             throw new IllegalArgumentException("AlarmAction with this state "
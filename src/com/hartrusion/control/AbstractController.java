@@ -34,7 +34,8 @@ import java.util.function.DoubleSupplier;
  *
  * @author Viktor Alexander Hartung
  */
-public abstract class AbstractController implements Runnable {
+public abstract class AbstractController implements Runnable,
+        StepTimeAware {
 
     protected double eInput;
     protected double uFollowUp;
@@ -58,6 +59,7 @@ public abstract class AbstractController implements Runnable {
      */
     protected final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
+    @Override
     public void setStepTime(double stepTime) {
         this.stepTime = stepTime;
     }
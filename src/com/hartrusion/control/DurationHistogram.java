@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram for durations in nanoseconds with a fixed relative precision,
+ * similar to the HdrHistogram. Values up to 64 ns are counted exactly, larger
+ * values are sorted into buckets where each power of two is split into 32
+ * sub buckets, so the relative error is below 3.2 %. Durations above one hour
+ * are counted as one hour.
+ * <p>
+ * Recording does not allocate and uses no locks, so it can be done on each
+ * simulation step. Values can be recorded and read from different threads,
+ * reading during recording may give slightly inconsistent results.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class DurationHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+
+    /**
+     * Highest value which is counted in its own bucket, 2^42 ns are about
+     * 73 minutes, so one hour will fit.
+     */
+    private static final long MAX_VALUE = 3_600_000_000_000L;
+
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        int sub = (int) (value >>> shift); // HALF_COUNT to SUB_COUNT - 1
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + sub - HALF_COUNT;
+    }
+
+    /**
+     * Returns the highest value that is sorted into the bucket.
+     */
+    private static long highestOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (index - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Adds a duration to the histogram.
+     *
+     * @param nanos Duration in nanoseconds, negative values are counted as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.getAndIncrement(indexOf(value));
+        count.getAndIncrement();
+        sum.getAndAdd(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+        current = min.get();
+        while (value < current && !min.compareAndSet(current, value)) {
+            current = min.get();
+        }
+    }
+
+    /**
+     * Number of recorded durations.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Highest recorded duration.
+     *
+     * @return Duration in ns, 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Lowest recorded duration.
+     *
+     * @return Duration in ns, 0 if nothing was recorded.
+     */
+    public long getMin() {
+        long value = min.get();
+        return value == Long.MAX_VALUE ? 0 : value;
+    }
+
+    /**
+     * Mean of all recorded durations.
+     *
+     * @return Duration in ns, 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Sum of all recorded durations.
+     *
+     * @return Duration in ns.
+     */
+    public long getTotal() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the duration which was not exceeded by the given percentage of
+     * all recorded durations. The value is the upper end of the bucket, so it
+     * might be slightly higher than the recorded value, but not higher than
+     * the maximum.
+     *
+     * @param percentile 0 to 100, for example 99.9
+     * @return Duration in ns, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException(
+                    "percentile must be from 0 to 100.");
+        }
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            seen += counts.get(idx);
+            if (seen >= target) {
+                return Math.min(highestOf(idx), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Adds all values recorded in another histogram to this one.
+     *
+     * @param other DurationHistogram to add.
+     */
+    public void add(DurationHistogram other) {
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            long value = other.counts.get(idx);
+            if (value != 0) {
+                counts.getAndAdd(idx, value);
+            }
+        }
+        count.getAndAdd(other.count.get());
+        sum.getAndAdd(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+        min.accumulateAndGet(other.min.get(), Math::min);
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            counts.set(idx, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+        min.set(Long.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.3f ms p50=%.3f ms p99=%.3f ms "
+                + "max=%.3f ms", getCount(), getMean() / 1e6,
+                getValueAtPercentile(50.0) / 1e6,
+                getValueAtPercentile(99.0) / 1e6, getMax() / 1e6);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a simulation step, usually SerialRunner::invokeAll, at a fixed period
+ * in real time. The schedule is based on System.nanoTime, so it is not
+ * affected by changes of the system clock.
+ * <p>
+ * If a step takes longer than the period, the following steps can not be
+ * started in time. How this is handled is set by the OverrunPolicy, default
+ * is to catch up with up to 10 missed steps.
+ * <p>
+ * For each step, the execution time and the jitter, which is the delay
+ * between the scheduled and the actual start, are recorded into histograms.
+ * Together with the counters, those can be read from any thread while the
+ * driver is running.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class FixedRateDriver {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            FixedRateDriver.class.getName());
+
+    private final Runnable step;
+    private final long periodNanos;
+
+    private OverrunPolicy policy = OverrunPolicy.CATCH_UP;
+    private int maxCatchUp = 10;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    private final DurationHistogram durations = new DurationHistogram();
+    private final DurationHistogram jitter = new DurationHistogram();
+
+    /**
+     * Counters are only written by the thread that runs the loop.
+     */
+    private volatile long stepCount;
+    private volatile long overrunCount;
+    private volatile long skippedCount;
+    private volatile long lastDuration;
+    private volatile boolean resetRequested;
+
+    /**
+     * Creates a driver for a step with the default period of 100 ms.
+     *
+     * @param step Runnable to call on each step.
+     */
+    public FixedRateDriver(Runnable step) {
+        this(step, 100, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a driver for a step.
+     *
+     * @param step Runnable to call on each step.
+     * @param period Time between the start of two steps.
+     * @param unit TimeUnit of period.
+     */
+    public FixedRateDriver(Runnable step, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException(
+                    "period must be a positive value.");
+        }
+        this.step = step;
+        this.periodNanos = unit.toNanos(period);
+    }
+
+    /**
+     * Sets how steps are handled which could not be started in time. Can not
+     * be changed while the driver is running.
+     *
+     * @param policy OverrunPolicy
+     */
+    public synchronized void setOverrunPolicy(OverrunPolicy policy) {
+        checkNotRunning();
+        this.policy = policy;
+    }
+
+    public OverrunPolicy getOverrunPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sets the maximum number of missed steps which will be run without
+     * waiting with OverrunPolicy.CATCH_UP, further missed steps will be
+     * skipped. Default: 10.
+     *
+     * @param maxCatchUp Number of steps, 0 or more.
+     */
+    public synchronized void setMaxCatchUp(int maxCatchUp) {
+        checkNotRunning();
+        if (maxCatchUp < 0) {
+            throw new IllegalArgumentException(
+                    "maxCatchUp must not be negative.");
+        }
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    private void checkNotRunning() {
+        if (running) {
+            throw new IllegalStateException("Driver is running.");
+        }
+    }
+
+    /**
+     * Starts running the steps on a new thread.
+     */
+    public synchronized void start() {
+        checkNotRunning();
+        running = true;
+        thread = new Thread(this::loop, "FixedRateDriver");
+        thread.start();
+    }
+
+    /**
+     * Runs the steps on the calling thread until stop is called from another
+     * thread or a step throws an exception.
+     */
+    public void run() {
+        synchronized (this) {
+            checkNotRunning();
+            running = true;
+            thread = Thread.currentThread();
+        }
+        loop();
+    }
+
+    /**
+     * Stops the driver after the current step and waits for the step to
+     * finish if the driver was started with start.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void stop() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            LockSupport.unpark(t);
+            t.join();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        long next = System.nanoTime();
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                while (now < next && running) {
+                    LockSupport.parkNanos(next - now);
+                    now = System.nanoTime();
+                }
+                if (!running) {
+                    break;
+                }
+                if (resetRequested) {
+                    reset();
+                }
+                jitter.record(now - next);
+                step.run();
+                long end = System.nanoTime();
+                long duration = end - now;
+                durations.record(duration);
+                lastDuration = duration;
+                stepCount++;
+                if (duration > periodNanos) {
+                    overrunCount++;
+                }
+                next += periodNanos;
+                if (end > next) {
+                    next = handleLateStep(next, end);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Step failed, driver is stopped.", ex);
+            throw ex;
+        } finally {
+            synchronized (this) {
+                running = false;
+                thread = null;
+                if (resetRequested) {
+                    reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the new start time of the next step if the next step is late.
+     */
+    private long handleLateStep(long next, long end) {
+        long missed = (end - next) / periodNanos + 1;
+        switch (policy) {
+            case CATCH_UP:
+                if (missed > maxCatchUp) {
+                    skippedCount += missed - maxCatchUp;
+                    return next + (missed - maxCatchUp) * periodNanos;
+                }
+                return next;
+            case SKIP:
+                skippedCount += missed;
+                return next + missed * periodNanos;
+            default:
+                return end;
+        }
+    }
+
+    /**
+     * Period between the start of two steps.
+     *
+     * @return Time in ns.
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Histogram of the execution time of each step.
+     *
+     * @return DurationHistogram with values in ns.
+     */
+    public DurationHistogram getDurationHistogram() {
+        return durations;
+    }
+
+    /**
+     * Histogram of the delay between the scheduled and the actual start of
+     * each step.
+     *
+     * @return DurationHistogram with values in ns.
+     */
+    public DurationHistogram getJitterHistogram() {
+        return jitter;
+    }
+
+    /**
+     * Number of steps that were run.
+     *
+     * @return count
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Number of steps that took longer than the period.
+     *
+     * @return count
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Number of steps that were not run because of overruns.
+     *
+     * @return count
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Execution time of the last step.
+     *
+     * @return Time in ns.
+     */
+    public long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * Resets all counters and histograms. If the driver is running, the reset
+     * is done by the driver thread before the next step, so no step gets
+     * counted partially.
+     */
+    public synchronized void resetStatistics() {
+        if (running) {
+            resetRequested = true;
+        } else {
+            reset();
+        }
+    }
+
+    private void reset() {
+        durations.reset();
+        jitter.reset();
+        stepCount = 0;
+        overrunCount = 0;
+        skippedCount = 0;
+        lastDuration = 0;
+        resetRequested = false;
+    }
+}
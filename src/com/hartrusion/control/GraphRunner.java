@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs submitted Runnables like the SerialRunner, but tasks which do not
+ * depend on each other are run in parallel on a ForkJoinPool.
+ * <p>
+ * Each task declares the tasks it depends on when it is submitted, those
+ * have to be submitted before. A task is started as soon as all its
+ * dependencies have finished in the current step, invokeAll returns after all
+ * tasks have finished, so there is one barrier per step. The order of
+ * submission is always a valid serial order, invokeSerial runs the tasks in
+ * this order on the calling thread.
+ * <p>
+ * The results are identical to serial execution as long as all tasks which
+ * share any state are connected by dependencies. Tasks without such a
+ * connection must not read or write the same objects.
+ * <p>
+ * If a task throws an exception, tasks which were not started yet are
+ * skipped, invokeAll waits for the running ones and throws the first
+ * exception.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class GraphRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            GraphRunner.class.getName());
+
+    private final ForkJoinPool pool;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final Map<Runnable, Integer> indexes = new HashMap<>();
+    private final List<int[]> dependencies = new ArrayList<>();
+
+    /**
+     * Graph in array form, built on the first invokeAll after a submit.
+     */
+    private Runnable[] taskArray;
+    private int[] dependencyCount;
+    private int[][] dependents;
+    private int[] roots;
+    private AtomicIntegerArray remaining;
+
+    /**
+     * Creates a GraphRunner which uses the common ForkJoinPool.
+     */
+    public GraphRunner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public GraphRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds a task which will be run after all given dependencies have been
+     * run in each step.
+     *
+     * @param s Task to run on each step.
+     * @param dependsOn Tasks which were submitted before and have to finish
+     * before this task.
+     */
+    public synchronized void submit(Runnable s, Runnable... dependsOn) {
+        if (indexes.containsKey(s)) {
+            LOGGER.log(Level.WARNING, "Tried to add an object that is "
+                    + "already present.");
+            return;
+        }
+        int[] deps = new int[dependsOn.length];
+        for (int idx = 0; idx < dependsOn.length; idx++) {
+            Integer dep = indexes.get(dependsOn[idx]);
+            if (dep == null) {
+                throw new IllegalArgumentException("Dependencies have to be "
+                        + "submitted before the task which depends on them.");
+            }
+            deps[idx] = dep;
+        }
+        indexes.put(s, tasks.size());
+        tasks.add(s);
+        dependencies.add(deps);
+        taskArray = null;
+    }
+
+    private void build() {
+        int n = tasks.size();
+        taskArray = tasks.toArray(new Runnable[n]);
+        dependencyCount = new int[n];
+        int[] dependentCount = new int[n];
+        for (int idx = 0; idx < n; idx++) {
+            for (int dep : distinct(dependencies.get(idx))) {
+                dependencyCount[idx]++;
+                dependentCount[dep]++;
+            }
+        }
+        dependents = new int[n][];
+        for (int idx = 0; idx < n; idx++) {
+            dependents[idx] = new int[dependentCount[idx]];
+            dependentCount[idx] = 0;
+        }
+        int rootCount = 0;
+        for (int idx = 0; idx < n; idx++) {
+            for (int dep : distinct(dependencies.get(idx))) {
+                dependents[dep][dependentCount[dep]++] = idx;
+            }
+            if (dependencyCount[idx] == 0) {
+                rootCount++;
+            }
+        }
+        roots = new int[rootCount];
+        rootCount = 0;
+        for (int idx = 0; idx < n; idx++) {
+            if (dependencyCount[idx] == 0) {
+                roots[rootCount++] = idx;
+            }
+        }
+        remaining = new AtomicIntegerArray(n);
+    }
+
+    private static int[] distinct(int[] values) {
+        return Arrays.stream(values).distinct().toArray();
+    }
+
+    /**
+     * Runs all tasks once, independent tasks in parallel. Returns after all
+     * tasks have finished.
+     */
+    public synchronized void invokeAll() {
+        if (taskArray == null) {
+            build();
+        }
+        if (taskArray.length == 0) {
+            return;
+        }
+        for (int idx = 0; idx < taskArray.length; idx++) {
+            remaining.set(idx, dependencyCount[idx]);
+        }
+        Step step = new Step();
+        pool.invoke(step);
+        RuntimeException ex = step.failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Runs all tasks once on the calling thread in the order they were
+     * submitted.
+     */
+    public synchronized void invokeSerial() {
+        for (Runnable s : tasks) {
+            s.run();
+        }
+    }
+
+    /**
+     * Root of the tasks of one step, completes when all tasks are done.
+     */
+    private final class Step extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        final AtomicReference<RuntimeException> failure
+                = new AtomicReference<>();
+
+        @Override
+        public void compute() {
+            for (int idx : roots) {
+                addToPendingCount(1);
+                new Task(this, idx).fork();
+            }
+            tryComplete();
+        }
+    }
+
+    private final class Task extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Step step;
+        private final int index;
+
+        Task(Step step, int index) {
+            super(step);
+            this.step = step;
+            this.index = index;
+        }
+
+        @Override
+        public void compute() {
+            if (step.failure.get() == null) {
+                try {
+                    taskArray[index].run();
+                } catch (RuntimeException ex) {
+                    step.failure.compareAndSet(null, ex);
+                }
+            }
+            for (int dependent : dependents[index]) {
+                if (remaining.decrementAndGet(dependent) == 0) {
+                    step.addToPendingCount(1);
+                    new Task(step, dependent).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+}
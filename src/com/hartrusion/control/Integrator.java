@@ -31,7 +31,7 @@ import java.util.function.DoubleSupplier;
  *
  * @author Viktor Alexander Hartung
  */
-public class Integrator implements Runnable {
+public class Integrator implements Runnable, StepTimeAware {
 
     private double uInput;
     private double yOutput;
@@ -44,6 +44,7 @@ public class Integrator implements Runnable {
 
     protected DoubleSupplier inputProvider;
     
+    @Override
     public void setStepTime(double stepTime) {
         this.stepTime = stepTime;
     }
@@ -0,0 +1,49 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+/**
+ * Describes how the FixedRateDriver handles ticks which could not be started
+ * in time because a previous tick took longer than the period.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public enum OverrunPolicy {
+    /**
+     * Missed ticks are run back to back without waiting until the driver is
+     * on schedule again, up to the maximum catch up count. The number of
+     * ticks stays in line with the elapsed time.
+     */
+    CATCH_UP,
+    /**
+     * Missed ticks are dropped, the next tick is run at the next regular
+     * point in time of the original schedule.
+     */
+    SKIP,
+    /**
+     * The late tick is run immediately and the schedule is shifted, following
+     * ticks are run one period after each other from there.
+     */
+    RESCHEDULE
+}
@@ -23,34 +23,423 @@
  */
 package com.hartrusion.control;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
+ * Runs all submitted Runnables in the order they were submitted, one call of
+ * invokeAll is one simulation step.
+ * <p>
+ * Tasks can be submitted with a divisor to run them only on each nTh step, for
+ * slow dynamics which do not need to be updated on each step. If no phase is
+ * given, the runner selects the phase with the least tasks so slow tasks are
+ * spread evenly across the steps. Tasks can also be run multiple times per
+ * step for fast dynamics.
+ * <p>
+ * Tasks which implement StepTimeAware, like controllers and integrators, get
+ * their effective step time set: the step time of the runner multiplied by
+ * the divisor or divided by the number of runs per step. This is only done
+ * once setStepTime of the runner was called, until then, step times which
+ * were set on the tasks themselves are kept.
+ * <p>
+ * For finding slow tasks, the execution time of each task can be measured on
+ * each nTh step by setting a sample interval. The timing can be read with
+ * getTopTasks or with JMX after calling registerMBean.
+ * <p>
+ * If a VirtualClock is set, it is advanced by the step time after each step.
  *
  * @author Viktor Alexander Hartung
  */
-public class SerialRunner {
+public class SerialRunner implements SerialRunnerMXBean {
 
     private static final Logger LOGGER = Logger.getLogger(
             SerialRunner.class.getName());
 
     private final List<Runnable> step = new ArrayList<>();
 
+    /**
+     * Divisor, phase and number of runs per step of each task, in the same
+     * order as the tasks.
+     */
+    private int[] divisors = new int[16];
+    private int[] phases = new int[16];
+    private int[] repeats = new int[16];
+
+    private double stepTime = 0.1;
+    private boolean stepTimeSet;
+    private volatile long stepCount;
+
+    /**
+     * Timing of each task in the same order as the tasks, created when a
+     * sample interval is set for the first time. Only written by the thread
+     * that runs the steps.
+     */
+    private volatile DurationHistogram[] timings;
+    private final DurationHistogram stepTimings = new DurationHistogram();
+    private volatile int sampleInterval;
+    private volatile boolean resetRequested;
+
+    private ObjectName objectName;
+
+    private volatile VirtualClock clock;
+
     public void submit(Runnable s) {
-        if (!step.contains(s)) {
-            step.add(s);
-        } else {
+        submit(s, 1, 0, 1);
+    }
+
+    /**
+     * Adds a task which will be run on each nTh step only. The phase is
+     * selected automatically to spread the tasks evenly.
+     *
+     * @param s Task to run.
+     * @param divisor Task will be run every divisor steps.
+     */
+    public void submit(Runnable s, int divisor) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException(
+                    "divisor must be a positive value.");
+        }
+        submit(s, divisor, selectPhase(divisor), 1);
+    }
+
+    /**
+     * Adds a task which will be run on each nTh step only.
+     *
+     * @param s Task to run.
+     * @param divisor Task will be run every divisor steps.
+     * @param phase Task will be run on steps where the step number modulo
+     * divisor equals phase, 0 to divisor - 1.
+     */
+    public void submit(Runnable s, int divisor, int phase) {
+        submit(s, divisor, phase, 1);
+    }
+
+    /**
+     * Adds a task which will be run multiple times on each step.
+     *
+     * @param s Task to run.
+     * @param runs Number of runs per step.
+     */
+    public void submitOversampled(Runnable s, int runs) {
+        submit(s, 1, 0, runs);
+    }
+
+    private void submit(Runnable s, int divisor, int phase, int runs) {
+        if (divisor <= 0 || runs <= 0) {
+            throw new IllegalArgumentException(
+                    "divisor and runs must be positive values.");
+        }
+        if (phase < 0 || phase >= divisor) {
+            throw new IllegalArgumentException(
+                    "phase must be from 0 to divisor - 1.");
+        }
+        if (step.contains(s)) {
             LOGGER.log(Level.WARNING, "Tried to add an object that is "
                     + "already present.");
+            return;
+        }
+        int idx = step.size();
+        if (idx == divisors.length) {
+            divisors = Arrays.copyOf(divisors, idx * 2);
+            phases = Arrays.copyOf(phases, idx * 2);
+            repeats = Arrays.copyOf(repeats, idx * 2);
+        }
+        DurationHistogram[] t = timings;
+        if (t != null) {
+            if (idx == t.length) {
+                t = Arrays.copyOf(t, idx * 2);
+            }
+            t[idx] = new DurationHistogram();
+            timings = t;
+        }
+        step.add(s);
+        divisors[idx] = divisor;
+        phases[idx] = phase;
+        repeats[idx] = runs;
+        applyStepTime(idx);
+    }
+
+    /**
+     * Returns the phase which is used by the least tasks, considering all
+     * tasks which would run on the same steps.
+     */
+    private int selectPhase(int divisor) {
+        int best = 0;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int phase = 0; phase < divisor; phase++) {
+            int load = 0;
+            for (int idx = 0; idx < step.size(); idx++) {
+                int gcd = gcd(divisor, divisors[idx]);
+                if ((phase - phases[idx]) % gcd == 0) {
+                    // Tasks meet on some steps, weight with their frequency
+                    load += repeats[idx] * divisor / divisors[idx] + 1;
+                }
+            }
+            if (load < bestLoad) {
+                best = phase;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private void applyStepTime(int idx) {
+        if (stepTimeSet && step.get(idx) instanceof StepTimeAware aware) {
+            aware.setStepTime(stepTime * divisors[idx] / repeats[idx]);
+        }
+    }
+
+    /**
+     * Sets the time of one step and updates the step time of all submitted
+     * StepTimeAware tasks. Tasks which are submitted afterwards get their
+     * step time set on submit.
+     *
+     * @param stepTime Time in seconds (Default: 0.1)
+     */
+    public void setStepTime(double stepTime) {
+        this.stepTime = stepTime;
+        stepTimeSet = true;
+        for (int idx = 0; idx < step.size(); idx++) {
+            applyStepTime(idx);
         }
     }
 
     public void invokeAll() {
-        for (Runnable s : step) {
-            s.run();
+        if (resetRequested) {
+            reset();
+        }
+        long n = stepCount++;
+        int interval = sampleInterval;
+        if (interval > 0 && n % interval == 0) {
+            invokeSampled(n);
+        } else {
+            for (int idx = 0; idx < step.size(); idx++) {
+                int divisor = divisors[idx];
+                if (divisor != 1 && n % divisor != phases[idx]) {
+                    continue;
+                }
+                Runnable s = step.get(idx);
+                for (int run = repeats[idx]; run > 0; run--) {
+                    s.run();
+                }
+            }
+        }
+        VirtualClock c = clock;
+        if (c != null) {
+            c.advance(stepTime);
+        }
+    }
+
+    /**
+     * Runs the given number of steps without any delay. Together with a
+     * VirtualClock, this allows to simulate long periods of time faster than
+     * real time.
+     *
+     * @param steps Number of steps to run.
+     */
+    public void invokeAll(long steps) {
+        for (long count = 0; count < steps; count++) {
+            invokeAll();
+        }
+    }
+
+    /**
+     * Sets a clock which will be advanced by the step time after each step.
+     * The same clock has to be set to all components which use a
+     * SimulationClock, so their time follows the simulation steps instead of
+     * the wall clock.
+     *
+     * @param clock VirtualClock, null to not advance any clock.
+     */
+    public void setClock(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    private void invokeSampled(long n) {
+        DurationHistogram[] t = timings;
+        long stepStart = System.nanoTime();
+        for (int idx = 0; idx < step.size(); idx++) {
+            int divisor = divisors[idx];
+            if (divisor != 1 && n % divisor != phases[idx]) {
+                continue;
+            }
+            Runnable s = step.get(idx);
+            long start = System.nanoTime();
+            for (int run = repeats[idx]; run > 0; run--) {
+                s.run();
+            }
+            t[idx].record(System.nanoTime() - start);
+        }
+        stepTimings.record(System.nanoTime() - stepStart);
+    }
+
+    /**
+     * Number of steps that were run with invokeAll.
+     *
+     * @return number of steps
+     */
+    @Override
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    @Override
+    public int getTaskCount() {
+        return step.size();
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Enables the measurement of the execution time of each task on each nTh
+     * step. Measuring each step will add some overhead, an interval of 10 or
+     * more is cheap enough to be left on. Tasks with a divisor are only
+     * measured if they are run on the sampled steps, so the interval should
+     * not be a multiple of the divisors.
+     *
+     * @param sampleInterval Measure every nTh step, 0 to disable.
+     */
+    @Override
+    public synchronized void setSampleInterval(int sampleInterval) {
+        if (sampleInterval < 0) {
+            throw new IllegalArgumentException(
+                    "sampleInterval must not be negative.");
+        }
+        if (sampleInterval > 0 && timings == null) {
+            DurationHistogram[] t = new DurationHistogram[divisors.length];
+            for (int idx = 0; idx < step.size(); idx++) {
+                t[idx] = new DurationHistogram();
+            }
+            timings = t;
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public double getMeanStepNanos() {
+        return stepTimings.getMean();
+    }
+
+    @Override
+    public long getP99StepNanos() {
+        return stepTimings.getValueAtPercentile(99.0);
+    }
+
+    @Override
+    public long getMaxStepNanos() {
+        return stepTimings.getMax();
+    }
+
+    /**
+     * Histogram of the execution time of the sampled steps.
+     *
+     * @return DurationHistogram with values in ns.
+     */
+    public DurationHistogram getStepHistogram() {
+        return stepTimings;
+    }
+
+    /**
+     * Returns the timing of the tasks which took the most time in total on
+     * the sampled steps.
+     *
+     * @param count Maximum number of tasks to return.
+     * @return TaskTiming array, sorted with the slowest task first. Empty if
+     * no sample interval was set.
+     */
+    @Override
+    public TaskTiming[] getTopTasks(int count) {
+        DurationHistogram[] t = timings;
+        if (t == null || count <= 0) {
+            return new TaskTiming[0];
+        }
+        List<TaskTiming> result = new ArrayList<>();
+        int size = Math.min(step.size(), t.length);
+        for (int idx = 0; idx < size; idx++) {
+            if (t[idx] != null && t[idx].getCount() > 0) {
+                result.add(new TaskTiming(step.get(idx).toString(), t[idx]));
+            }
+        }
+        result.sort(Comparator.comparingLong(
+                TaskTiming::getTotalNanos).reversed());
+        return result.subList(0, Math.min(count, result.size()))
+                .toArray(new TaskTiming[0]);
+    }
+
+    /**
+     * Resets the timing of the steps and all tasks. As this is usually called
+     * from another thread, for example by JMX, the reset is done by the thread
+     * which runs the steps at the beginning of the next call of invokeAll, so
+     * no histogram is reset while a sampled step records to it.
+     */
+    @Override
+    public void resetTimings() {
+        resetRequested = true;
+    }
+
+    private void reset() {
+        resetRequested = false;
+        DurationHistogram[] t = timings;
+        if (t != null) {
+            for (DurationHistogram h : t) {
+                if (h != null) {
+                    h.reset();
+                }
+            }
+        }
+        stepTimings.reset();
+    }
+
+    /**
+     * Registers this runner at the platform MBeanServer with the object name
+     * com.hartrusion.control:type=SerialRunner,name=(name).
+     *
+     * @param name Name to identify the runner.
+     * @throws JMException if the registration failed.
+     */
+    public synchronized void registerMBean(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("MBean is already registered.");
+        }
+        ObjectName on = new ObjectName("com.hartrusion.control:"
+                + "type=SerialRunner,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+        objectName = on;
+    }
+
+    /**
+     * Removes this runner from the platform MBeanServer.
+     *
+     * @throws JMException if the removal failed.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer()
+                    .unregisterMBean(objectName);
+            objectName = null;
         }
     }
 }
@@ -43,10 +43,13 @@ public class Setpoint extends SetpointIntegrator {
 
     private ValueHandler outputValues;
 
+    private int outputHandle = -1;
+
     private String name;
 
     public void initName(String name) {
         this.name = name;
+        outputHandle = -1;
     }
 
     /**
@@ -56,13 +59,17 @@ public class Setpoint extends SetpointIntegrator {
      */
     public void registerParameterHandler(ValueHandler h) {
         outputValues = h;
+        outputHandle = -1;
     }
 
     @Override
     public void run() {
         super.run();
         if (outputValues != null) {
-            outputValues.setParameterValue(name, value);
+            if (outputHandle < 0) {
+                outputHandle = outputValues.registerParameterDouble(name);
+            }
+            outputValues.setParameterDouble(outputHandle, value);
         }
     }
 
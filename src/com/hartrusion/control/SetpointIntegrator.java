@@ -30,7 +30,7 @@ package com.hartrusion.control;
  *
  * @author Viktor Alexander Hartung
  */
-public class SetpointIntegrator implements Runnable {
+public class SetpointIntegrator implements Runnable, StepTimeAware {
 
     private double stepTime = 0.1; // assume 100 ms as default
     private double maxRate = 1; // rate per timeunit (seconds, usually...)
@@ -119,6 +119,7 @@ public class SetpointIntegrator implements Runnable {
         maxDelta = stepTime * maxRate;
     }
 
+    @Override
     public void setStepTime(double dt) {
         stepTime = dt;
         maxDelta = stepTime * maxRate;
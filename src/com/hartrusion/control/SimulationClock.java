@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Source of the current time for components which have time based behaviour,
+ * like the start-up sequence of pumps. Using SYSTEM, the simulation runs with
+ * wall clock time. Using a VirtualClock which is advanced by the SerialRunner,
+ * the time only depends on the number of steps, so the simulation can run
+ * faster than real time and gives the same results on each run.
+ * <p>
+ * As this is a LongSupplier, it can also be used as time source for the
+ * AlarmManager.
+ *
+ * @author Viktor Alexander Hartung
+ */
+@FunctionalInterface
+public interface SimulationClock extends LongSupplier {
+
+    /**
+     * Clock which returns the system time.
+     */
+    SimulationClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * Current time of the simulation.
+     *
+     * @return Time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * Current time of the simulation.
+     *
+     * @return Instant
+     */
+    default Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    default long getAsLong() {
+        return millis();
+    }
+}
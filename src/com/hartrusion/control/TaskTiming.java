@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Execution time statistics of one task of a SerialRunner, created from the
+ * sampled steps when the timing report is requested. The public constructor
+ * allows JMX clients to rebuild instances from the CompositeData of the
+ * SerialRunnerMXBean.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class TaskTiming {
+
+    private final String name;
+    private final long count;
+    private final double meanNanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final long totalNanos;
+
+    TaskTiming(String name, DurationHistogram histogram) {
+        this(name, histogram.getCount(), histogram.getMean(),
+                histogram.getValueAtPercentile(99.0), histogram.getMax(),
+                histogram.getTotal());
+    }
+
+    /**
+     * Creates a timing from given values.
+     *
+     * @param name Name of the task.
+     * @param count Number of sampled steps on which the task was run.
+     * @param meanNanos Mean execution time in ns.
+     * @param p99Nanos 99th percentile of the execution time in ns.
+     * @param maxNanos Maximum execution time in ns.
+     * @param totalNanos Sum of the execution time in ns.
+     */
+    @ConstructorProperties({"name", "count", "meanNanos", "p99Nanos",
+        "maxNanos", "totalNanos"})
+    public TaskTiming(String name, long count, double meanNanos,
+            long p99Nanos, long maxNanos, long totalNanos) {
+        this.name = name;
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Name of the task, taken from its toString method.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of sampled steps on which the task was run.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Sum of the execution time on all sampled steps, used to sort the tasks.
+     *
+     * @return Time in ns.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d mean=%.3f ms p99=%.3f ms max=%.3f ms",
+                name, count, meanNanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6);
+    }
+}
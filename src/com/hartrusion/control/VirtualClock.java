@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.control;
+
+/**
+ * SimulationClock which only advances if it is told to, usually by the
+ * SerialRunner after each step. The time is held in nanoseconds, so step
+ * times which are not a multiple of a millisecond do not add up rounding
+ * errors.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class VirtualClock implements SimulationClock {
+
+    private volatile long nanos;
+
+    /**
+     * Creates a clock which starts at 0.
+     */
+    public VirtualClock() {
+    }
+
+    /**
+     * Creates a clock which starts at the given time.
+     *
+     * @param millis Start time in milliseconds, for example the wall clock
+     * time when a replay was recorded.
+     */
+    public VirtualClock(long millis) {
+        nanos = millis * 1_000_000L;
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(nanos, 1_000_000L);
+    }
+
+    /**
+     * Current time of the clock.
+     *
+     * @return Time in nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Advances the clock. Only one thread must advance the clock.
+     *
+     * @param seconds Time to add, must not be negative.
+     */
+    public void advance(double seconds) {
+        if (!(seconds >= 0.0)) {
+            throw new IllegalArgumentException(
+                    "seconds must not be negative.");
+        }
+        nanos += Math.round(seconds * 1e9);
+    }
+
+    /**
+     * Sets the clock to a fixed time.
+     *
+     * @param millis Time in milliseconds.
+     */
+    public void setMillis(long millis) {
+        nanos = millis * 1_000_000L;
+    }
+}
@@ -51,6 +51,12 @@ public abstract class BaseAutomatedValve {
 
     protected ValueHandler outputValues;
 
+    /**
+     * Handle of the valve position parameter in outputValues, obtained on
+     * first use.
+     */
+    protected int outputHandle = -1;
+
     protected boolean safeOpen = true;
     protected BooleanSupplier safeOpenProvider;
     protected boolean safeClosed = true;
@@ -67,6 +73,7 @@ public abstract class BaseAutomatedValve {
     public void initName(String name) {
         this.name = name;
         monitor.setName(name);
+        outputHandle = -1;
     }
 
     /**
@@ -88,6 +95,7 @@ public abstract class BaseAutomatedValve {
      */
     public void registerParameterHandler(ValueHandler h) {
         outputValues = h;
+        outputHandle = -1;
     }
 
     /**
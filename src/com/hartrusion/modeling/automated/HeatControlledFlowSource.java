@@ -48,6 +48,7 @@ public class HeatControlledFlowSource implements Runnable {
      * handler.
      */
     private ValueHandler outputValues;
+    private int outputHandle = -1;
 
     /**
      * Value in kg/s that will flow on 100 % valve position.
@@ -65,6 +66,7 @@ public class HeatControlledFlowSource implements Runnable {
         value.initName(name);
         monitor.setName(name);
         this.name = name;
+        outputHandle = -1;
     }
 
     /**
@@ -84,6 +86,7 @@ public class HeatControlledFlowSource implements Runnable {
      */
     public void registerParameterHandler(ValueHandler h) {
         outputValues = h;
+        outputHandle = -1;
     }
 
     /**
@@ -105,7 +108,10 @@ public class HeatControlledFlowSource implements Runnable {
 
         if (outputValues != null) {
             // Send flow rate as 0..100 % to mimic valve position.
-            outputValues.setParameterValue(name,valvePosition);
+            if (outputHandle < 0) {
+                outputHandle = outputValues.registerParameterDouble(name);
+            }
+            outputValues.setParameterDouble(outputHandle, valvePosition);
         }
         
         monitor.setInput(valvePosition);
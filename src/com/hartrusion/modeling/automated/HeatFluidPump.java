@@ -26,6 +26,7 @@ package com.hartrusion.modeling.automated;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import com.hartrusion.control.SetpointIntegrator;
+import com.hartrusion.control.SimulationClock;
 import com.hartrusion.control.ValveActuatorMonitor;
 import com.hartrusion.modeling.heatfluid.HeatEffortSource;
 import com.hartrusion.modeling.heatfluid.HeatLinearValve;
@@ -75,6 +76,7 @@ public class HeatFluidPump implements Runnable {
     private boolean ready;
     private Instant stateTime; // for state machine control
     private Instant switchOnTime;
+    private SimulationClock clock = SimulationClock.SYSTEM;
     
     private boolean safeOff = true;
     private BooleanSupplier safeOffProvider;
@@ -210,7 +212,7 @@ public class HeatFluidPump implements Runnable {
         oldPumpState = pumpState;
         
        // get current time
-        Instant now = Instant.now();
+        Instant now = clock.instant();
 
         if (!safeOff) {
             ready = false;
@@ -229,7 +231,7 @@ public class HeatFluidPump implements Runnable {
             case 0: // inactive
                 if (ready) {
                     state = 1;
-                    stateTime = Instant.now();
+                    stateTime = clock.instant();
                 }
                 break;
             case 1: // ready time delay
@@ -245,7 +247,7 @@ public class HeatFluidPump implements Runnable {
                 break;
             case 3: // Start the startup phase after short delay
                 if (Duration.between(stateTime, now).toMillis() >= 800) {
-                    stateTime = Instant.now();
+                    stateTime = clock.instant();
                     pumpState = PumpState.STARTUP;
                     state = 4;
                 } else if (!ready) { // abort
@@ -255,10 +257,10 @@ public class HeatFluidPump implements Runnable {
                 break;
             case 4: // Startup phase
                 if (Duration.between(stateTime, now).toMillis() >= 3000) {
-                    stateTime = Instant.now();
+                    stateTime = clock.instant();
                     state = 5;
                     // Remember this time for restart lock time
-                    switchOnTime = Instant.now();
+                    switchOnTime = clock.instant();
                     // Switch on:
                     pumpState = PumpState.RUNNING;
                     pump.setEffort(totalHead);
@@ -337,7 +339,7 @@ public class HeatFluidPump implements Runnable {
     public void operateStartPump() {
         if (state == 2 && dischargeControl.getOutput() <= 1.0) {
             state = 3; // switch state machine
-            stateTime = Instant.now();
+            stateTime = clock.instant();
         }
     }
 
@@ -369,6 +371,20 @@ public class HeatFluidPump implements Runnable {
         return safeOff;
     }
 
+    /**
+     * Sets the clock used for the start-up delays and the restart lock of the
+     * state machine. Default is the system clock.
+     *
+     * @param clock SimulationClock, for example the VirtualClock of the
+     * SerialRunner that runs this assembly.
+     */
+    public void setClock(SimulationClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock must not be null.");
+        }
+        this.clock = clock;
+    }
+
     public void setSafeOff(boolean safeOff) {
         if (safeOffProvider != null) {
             throw new IllegalArgumentException("A safeOffProvider is set, "
@@ -94,7 +94,11 @@ public class PhasedValve extends BaseAutomatedValve implements Runnable {
 
         // Send valve position as parameter value for monitoring
         if (outputValues != null) {
-            outputValues.setParameterValue(valve.toString(),
+            if (outputHandle < 0) {
+                outputHandle = outputValues.registerParameterDouble(
+                        valve.toString());
+            }
+            outputValues.setParameterDouble(outputHandle,
                     valve.getOpening());
         }
     }
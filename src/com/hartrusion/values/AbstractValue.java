@@ -23,12 +23,24 @@
  */
 package com.hartrusion.values;
 
+import com.hartrusion.mvc.UpdateReceiver;
+import java.util.Queue;
+
 /**
+ * Common part of all values held by the ValueHandler.
+ * <p>
+ * Values can track if they were changed since they were last fired. A changed
+ * value puts itself once into the change queue of the ValueHandler, so only
+ * changed values need to be processed when firing them.
  *
  * @author Viktor Alexander Hartung
  */
 public abstract class AbstractValue {
     private String component;
+    private int handle = -1;
+
+    private volatile boolean changed;
+    private Queue<AbstractValue> changeQueue;
 
     public String getComponent() {
         return component;
@@ -36,6 +48,49 @@ public abstract class AbstractValue {
 
     public void setComponent(String component) {
         this.component = component;
-    }    
-    
+    }
+
+    /**
+     * Index of this value in the dense handle arrays of the ValueHandler.
+     *
+     * @return handle or -1 if not assigned.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    void setHandle(int handle) {
+        this.handle = handle;
+    }
+
+    void setChangeQueue(Queue<AbstractValue> changeQueue) {
+        this.changeQueue = changeQueue;
+    }
+
+    boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Marks the value as changed and puts it in the change queue, if it is
+     * not marked already.
+     */
+    void markChanged() {
+        if (changeQueue != null && !changed) {
+            changed = true;
+            changeQueue.offer(this);
+        }
+    }
+
+    /**
+     * Removes the changed mark. Has to be called before reading the value
+     * that will be fired, so a change in between will mark it again.
+     */
+    void clearChanged() {
+        changed = false;
+    }
+
+    abstract void fireTo(ValueReceiver receiver);
+
+    abstract void fireTo(UpdateReceiver receiver);
 }
@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Off-heap storage for the history of double values. Instead of each
+ * PrimitiveDoubleValue allocating its own arrays on the heap, all histories
+ * are kept in one direct buffer which is allocated once with a fixed capacity
+ * of parameters. The store is created for one HistoryProfile, only parameters
+ * with this profile can use the store.
+ * <p>
+ * The region is laid out per tier: all series of the tier with the smallest
+ * divider are placed after each other, followed by all series of the next
+ * divider and so on. Each
+ * parameter gets a slot assigned, the series of a parameter are at the same
+ * slot position in each tier region. This keeps the values of one tier of all
+ * parameters in one continuous memory block which is good for scanning over
+ * all signals.
+ * <p>
+ * If the profile has envelopes, each tier with a divider greater than 1 gets
+ * three more regions for the minimum, maximum and mean values directly after
+ * its value region.
+ * <p>
+ * Slots are never freed, as parameters are never removed from the
+ * ValueHandler.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ColumnarHistoryStore {
+
+    private final HistoryProfile profile;
+    private final int capacity;
+    private final int depth;
+    private final FloatBuffer region;
+
+    /**
+     * Index of the value region of each tier, counted in regions.
+     */
+    private final int[] tierRegion;
+
+    private int allocatedSlots = 0;
+
+    /**
+     * Allocates the off-heap region for the given amount of parameters with
+     * the default history profile, without envelopes.
+     *
+     * @param capacity Maximum number of parameters that can be stored.
+     */
+    public ColumnarHistoryStore(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Allocates the off-heap region for the given amount of parameters with
+     * the default history profile.
+     *
+     * @param capacity Maximum number of parameters that can be stored.
+     * @param envelope true to reserve space for min, max and mean values.
+     */
+    public ColumnarHistoryStore(int capacity, boolean envelope) {
+        this(capacity, HistoryProfile.DEFAULT.withEnvelope(envelope));
+    }
+
+    /**
+     * Allocates the off-heap region for the given amount of parameters.
+     *
+     * @param capacity Maximum number of parameters that can be stored.
+     * @param profile History profile of all parameters in this store.
+     */
+    public ColumnarHistoryStore(int capacity, HistoryProfile profile) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "capacity must be a positive value.");
+        }
+        this.profile = profile;
+        depth = profile.getDepth();
+        tierRegion = new int[profile.getTierCount()];
+        int regions = 0;
+        for (int idx = 0; idx < tierRegion.length; idx++) {
+            tierRegion[idx] = regions;
+            regions += hasEnvelope(idx) ? 4 : 1;
+        }
+        long bytes = (long) capacity * regions * depth * Float.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity of " + capacity
+                    + " parameters exceeds the maximum buffer size.");
+        }
+        this.capacity = capacity;
+        region = ByteBuffer.allocateDirect((int) bytes)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private boolean hasEnvelope(int tierIndex) {
+        return profile.hasEnvelope() && profile.getDivider(tierIndex) > 1;
+    }
+
+    /**
+     * Assigns a new slot for a parameter.
+     *
+     * @return slot index or -1 if the store is full.
+     */
+    synchronized int allocateSlot() {
+        if (allocatedSlots >= capacity) {
+            return -1;
+        }
+        return allocatedSlots++;
+    }
+
+    /**
+     * Creates the history tiers of one slot, all tiers are views into the
+     * off-heap region.
+     *
+     * @param slot as returned by allocateSlot
+     * @return HistoryTier array in the order of the profile dividers
+     */
+    HistoryTier[] createTiers(int slot) {
+        HistoryTier[] tiers = new HistoryTier[tierRegion.length];
+        for (int idx = 0; idx < tiers.length; idx++) {
+            int r = tierRegion[idx];
+            if (hasEnvelope(idx)) {
+                tiers[idx] = new HistoryTier(profile.getDivider(idx),
+                        region.slice(getOffset(r, slot), depth),
+                        region.slice(getOffset(r + 1, slot), depth),
+                        region.slice(getOffset(r + 2, slot), depth),
+                        region.slice(getOffset(r + 3, slot), depth));
+            } else {
+                tiers[idx] = new HistoryTier(profile.getDivider(idx),
+                        region.slice(getOffset(r, slot), depth),
+                        null, null, null);
+            }
+        }
+        return tiers;
+    }
+
+    private int getOffset(int regionIndex, int slot) {
+        return (regionIndex * capacity + slot) * depth;
+    }
+
+    /**
+     * Returns a read-only view on all series of one tier. The series of slot
+     * n starts at index n * depth, the newest value of a series is not
+     * necessarily at its first index as the series are ring buffers.
+     *
+     * @param div Time divider, one of the dividers of the profile.
+     * @return FloatBuffer with allocated slots times depth values
+     */
+    public FloatBuffer getTierRegion(int div) {
+        for (int idx = 0; idx < tierRegion.length; idx++) {
+            if (profile.getDivider(idx) == div) {
+                return region.slice(getOffset(tierRegion[idx], 0),
+                        getAllocatedSlots() * depth).asReadOnlyBuffer();
+            }
+        }
+        throw new IllegalArgumentException("Wrong div argument.");
+    }
+
+    public HistoryProfile getProfile() {
+        return profile;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean hasEnvelope() {
+        return profile.hasEnvelope();
+    }
+
+    public synchronized int getAllocatedSlots() {
+        return allocatedSlots;
+    }
+
+    /**
+     * Returns the size of the off-heap region.
+     *
+     * @return size in bytes
+     */
+    public long getRegionBytes() {
+        return (long) region.capacity() * Float.BYTES;
+    }
+}
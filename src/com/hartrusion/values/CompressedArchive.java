@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Compressed long-term archive of all values of a double parameter, in full
+ * resolution. Values are XOR encoded with the previous value as described
+ * for the Gorilla time series database: a value that did not change takes one
+ * bit, a slowly changing value only stores the few bits that differ. This
+ * suits plant signals like levels and temperatures which change smoothly.
+ * <p>
+ * Values are stored in blocks with a fixed number of values. A full block is
+ * sealed and trimmed to its size, it will never change again. As each block
+ * starts with an uncompressed value, decoding can start at the block
+ * containing the first requested value.
+ * <p>
+ * There are no time stamps stored. Values are appended once per simulation
+ * step with a fixed step time, the index of a value is its step number since
+ * the archive was created.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class CompressedArchive {
+
+    private final int blockSize;
+    private final List<Block> sealed = new ArrayList<>();
+    private Block active;
+
+    /**
+     * Maximum number of sealed blocks, oldest blocks will be removed. 0 means
+     * no limit.
+     */
+    private int maxBlocks = 0;
+
+    /**
+     * Index of the first value in the first sealed block.
+     */
+    private long firstIndex = 0;
+
+    /**
+     * Creates an archive with 1024 values per block.
+     */
+    public CompressedArchive() {
+        this(1024);
+    }
+
+    /**
+     * Creates an archive.
+     *
+     * @param blockSize Number of values per block.
+     */
+    public CompressedArchive(int blockSize) {
+        if (blockSize <= 1) {
+            throw new IllegalArgumentException(
+                    "blockSize must be greater than 1.");
+        }
+        this.blockSize = blockSize;
+        active = new Block(blockSize);
+    }
+
+    /**
+     * Limits the number of sealed blocks that are kept, oldest blocks will be
+     * removed when a new block is sealed.
+     *
+     * @param maxBlocks Maximum number of sealed blocks, 0 for no limit.
+     */
+    public synchronized void setMaxBlocks(int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * Appends a value to the archive.
+     *
+     * @param value new value
+     */
+    public synchronized void append(double value) {
+        active.append(value);
+        if (active.count == blockSize) {
+            active.trim();
+            sealed.add(active);
+            active = new Block(blockSize);
+            if (maxBlocks > 0 && sealed.size() > maxBlocks) {
+                sealed.remove(0);
+                firstIndex += blockSize;
+            }
+        }
+    }
+
+    /**
+     * Index of the oldest value that is available.
+     *
+     * @return index
+     */
+    public synchronized long getFirstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * Index after the newest value, which is the number of values that were
+     * appended to the archive.
+     *
+     * @return index
+     */
+    public synchronized long getEndIndex() {
+        return firstIndex + (long) sealed.size() * blockSize + active.count;
+    }
+
+    /**
+     * Decodes a range of values and passes them to a consumer in the order
+     * they were appended. Only the blocks containing the range are decoded.
+     * The archive is not locked while decoding.
+     *
+     * @param fromIndex Index of the first value (inclusive), will be limited
+     * to the first available index.
+     * @param toIndex Index after the last value (exclusive), will be limited
+     * to the end index.
+     * @param consumer Receives the decoded values.
+     */
+    public void decode(long fromIndex, long toIndex, DoubleConsumer consumer) {
+        List<Block> blocks;
+        long first;
+        synchronized (this) {
+            // Sealed blocks never change, the active one gets copied.
+            blocks = new ArrayList<>(sealed);
+            blocks.add(active.copy());
+            first = firstIndex;
+        }
+        long from = Math.max(fromIndex, first);
+        int blockIdx = (int) ((from - first) / blockSize);
+        long blockStart = first + (long) blockIdx * blockSize;
+        while (blockIdx < blocks.size() && blockStart < toIndex) {
+            Block block = blocks.get(blockIdx);
+            int skip = (int) (from - blockStart);
+            int end = (int) Math.min(block.count, toIndex - blockStart);
+            block.decode(skip, end, consumer);
+            from = blockStart + blockSize;
+            blockStart = from;
+            blockIdx++;
+        }
+    }
+
+    /**
+     * Decodes a range of values to an array.
+     *
+     * @param fromIndex Index of the first value (inclusive).
+     * @param toIndex Index after the last value (exclusive).
+     * @return double[] with the values
+     */
+    public double[] toArray(long fromIndex, long toIndex) {
+        double[][] result = {new double[64]};
+        int[] count = {0};
+        decode(fromIndex, toIndex, value -> {
+            if (count[0] == result[0].length) {
+                result[0] = Arrays.copyOf(result[0], count[0] * 2);
+            }
+            result[0][count[0]++] = value;
+        });
+        return Arrays.copyOf(result[0], count[0]);
+    }
+
+    /**
+     * Returns the memory used by the encoded values.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getMemoryFootprint() {
+        long bytes = (long) active.words.length * Long.BYTES;
+        for (Block block : sealed) {
+            bytes += (long) block.words.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the ratio of the size of the values as uncompressed doubles to
+     * the memory footprint.
+     *
+     * @return compression ratio, for example 10.0 for a tenth of the size
+     */
+    public synchronized double getCompressionRatio() {
+        long values = getEndIndex() - firstIndex;
+        return (double) values * Double.BYTES / getMemoryFootprint();
+    }
+
+    /**
+     * A block of XOR encoded values. Bits are written starting with the most
+     * significant bit of each word.
+     */
+    private static final class Block {
+
+        private long[] words;
+        private int bits;
+        private int count;
+
+        // encoder state
+        private long previous;
+        private int previousLeading = -1;
+        private int previousTrailing;
+
+        Block(int blockSize) {
+            // Slowly changing values need around 16 bits per value.
+            words = new long[Math.max(4, blockSize / 4)];
+        }
+
+        private Block(Block source) {
+            words = source.words.clone();
+            bits = source.bits;
+            count = source.count;
+        }
+
+        Block copy() {
+            return new Block(this);
+        }
+
+        void append(double value) {
+            long valueBits = Double.doubleToRawLongBits(value);
+            if (count == 0) {
+                write(valueBits, 64);
+            } else {
+                long xor = valueBits ^ previous;
+                if (xor == 0) {
+                    write(0, 1);
+                } else {
+                    int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+                    int trailing = Long.numberOfTrailingZeros(xor);
+                    if (previousLeading >= 0 && leading >= previousLeading
+                            && trailing >= previousTrailing) {
+                        // Meaningful bits fit in the previous window
+                        write(0b10, 2);
+                        write(xor >>> previousTrailing,
+                                64 - previousLeading - previousTrailing);
+                    } else {
+                        int significant = 64 - leading - trailing;
+                        write(0b11, 2);
+                        write(leading, 5);
+                        write(significant & 63, 6); // 64 is written as 0
+                        write(xor >>> trailing, significant);
+                        previousLeading = leading;
+                        previousTrailing = trailing;
+                    }
+                }
+            }
+            previous = valueBits;
+            count++;
+        }
+
+        void decode(int skip, int end, DoubleConsumer consumer) {
+            int pos = 0;
+            long value = 0;
+            int leading = 0;
+            int trailing = 0;
+            for (int idx = 0; idx < end; idx++) {
+                if (idx == 0) {
+                    value = read(pos, 64);
+                    pos += 64;
+                } else if (read(pos++, 1) != 0) {
+                    if (read(pos++, 1) != 0) {
+                        leading = (int) read(pos, 5);
+                        int significant = (int) read(pos + 5, 6);
+                        if (significant == 0) {
+                            significant = 64;
+                        }
+                        pos += 11;
+                        trailing = 64 - leading - significant;
+                    }
+                    int significant = 64 - leading - trailing;
+                    value ^= read(pos, significant) << trailing;
+                    pos += significant;
+                }
+                if (idx >= skip) {
+                    consumer.accept(Double.longBitsToDouble(value));
+                }
+            }
+        }
+
+        void trim() {
+            words = Arrays.copyOf(words, (bits + 63) >>> 6);
+        }
+
+        private void write(long value, int n) {
+            if (bits + n > words.length * 64) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            long v = n == 64 ? value : value & ((1L << n) - 1);
+            int word = bits >>> 6;
+            int free = 64 - (bits & 63);
+            if (n <= free) {
+                words[word] |= v << (free - n);
+            } else {
+                words[word] |= v >>> (n - free);
+                words[word + 1] |= v << (64 - (n - free));
+            }
+            bits += n;
+        }
+
+        private long read(int pos, int n) {
+            int word = pos >>> 6;
+            int free = 64 - (pos & 63);
+            if (n <= free) {
+                return (words[word] >>> (free - n)) & mask(n);
+            }
+            int rest = n - free;
+            return ((words[word] & mask(free)) << rest)
+                    | (words[word + 1] >>> (64 - rest));
+        }
+
+        private static long mask(int n) {
+            return n == 64 ? -1L : (1L << n) - 1;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segment files written by a ValueHistorian. The files are mapped
+ * into memory, records are located with a binary search on the step number,
+ * so reading a short time range from a long run does not require reading the
+ * whole files.
+ * <p>
+ * Segment files are listed once on creation. Records which are appended to
+ * those segments later are visible to the reader, new segments are not.
+ * <p>
+ * As the step numbers start again with each run of the simulation, only the
+ * segments of one run are read. By default, this is the latest run.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class HistorianReader {
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final long[] runIds;
+    private final long runId;
+
+    /**
+     * Opens the segment files of the latest run with the given prefix in a
+     * directory.
+     *
+     * @param directory Directory containing the segment files.
+     * @param prefix First part of the segment file names.
+     * @throws IOException if a file can not be read or has a wrong format.
+     */
+    public HistorianReader(Path directory, String prefix) throws IOException {
+        this(directory, prefix, -1);
+    }
+
+    /**
+     * Opens the segment files of one run with the given prefix in a
+     * directory.
+     *
+     * @param directory Directory containing the segment files.
+     * @param prefix First part of the segment file names.
+     * @param runId Run to read as returned by getRunIds or by the
+     * ValueHistorian, -1 for the latest run.
+     * @throws IOException if a file can not be read or has a wrong format.
+     */
+    public HistorianReader(Path directory, String prefix, long runId)
+            throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(prefix + "-")
+                        && name.endsWith(ValueHistorian.SUFFIX);
+            }).sorted().toList();
+        }
+        List<Segment> all = new ArrayList<>();
+        TreeSet<Long> runs = new TreeSet<>();
+        for (Path file : files) {
+            Segment seg = new Segment(file);
+            all.add(seg);
+            runs.add(seg.runId);
+        }
+        runIds = runs.stream().mapToLong(Long::longValue).toArray();
+        this.runId = runId >= 0 || runs.isEmpty() ? runId : runs.last();
+        for (Segment seg : all) {
+            if (seg.runId == this.runId) {
+                segments.add(seg);
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of all runs found in the directory, sorted from the
+     * oldest to the latest run. Segments written by older versions have the
+     * run id 0.
+     *
+     * @return array of run ids
+     */
+    public long[] getRunIds() {
+        return runIds.clone();
+    }
+
+    /**
+     * Returns the id of the run which is read.
+     *
+     * @return run id
+     */
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Reads a double parameter in a time range. The time is the step number
+     * multiplied with the step time, it starts with the first step of the
+     * simulation.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range in seconds (inclusive).
+     * @param toTime End of the range in seconds (inclusive).
+     * @return HistorianSeries, empty if there are no values.
+     */
+    public HistorianSeries readDouble(String component, double fromTime,
+            double toTime) {
+        return read(component, 'D', fromTime, toTime);
+    }
+
+    /**
+     * Reads an int parameter in a time range, see readDouble.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range in seconds (inclusive).
+     * @param toTime End of the range in seconds (inclusive).
+     * @return HistorianSeries, empty if there are no values.
+     */
+    public HistorianSeries readInt(String component, double fromTime,
+            double toTime) {
+        return read(component, 'I', fromTime, toTime);
+    }
+
+    /**
+     * Reads a boolean parameter in a time range, see readDouble. The values
+     * of the returned series are 1.0 for true and 0.0 for false.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range in seconds (inclusive).
+     * @param toTime End of the range in seconds (inclusive).
+     * @return HistorianSeries, empty if there are no values.
+     */
+    public HistorianSeries readBoolean(String component, double fromTime,
+            double toTime) {
+        return read(component, 'B', fromTime, toTime);
+    }
+
+    private HistorianSeries read(String component, char type,
+            double fromTime, double toTime) {
+        long[] steps = new long[256];
+        double[] values = new double[256];
+        int count = 0;
+        double stepTime = 0.0;
+        for (Segment seg : segments) {
+            Integer column = seg.columns.get(type + component);
+            if (column == null) {
+                continue;
+            }
+            stepTime = seg.stepTime;
+            long fromStep = (long) Math.ceil(fromTime / seg.stepTime - 1e-9);
+            long toStep = (long) Math.floor(toTime / seg.stepTime + 1e-9);
+            int records = seg.getRecordCount();
+            for (int rec = seg.findFirst(fromStep, records); rec < records;
+                    rec++) {
+                long step = seg.getStep(rec);
+                if (step > toStep) {
+                    break;
+                }
+                if (count == steps.length) {
+                    steps = Arrays.copyOf(steps, count * 2);
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                steps[count] = step;
+                values[count] = seg.getValue(rec, type, column);
+                count++;
+            }
+        }
+        return new HistorianSeries(Arrays.copyOf(steps, count),
+                Arrays.copyOf(values, count), stepTime);
+    }
+
+    /**
+     * One mapped segment file.
+     */
+    private static class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final int headerSize;
+        private final int recordSize;
+        private final int nDouble, nInt;
+        private final double stepTime;
+        private final long runId;
+
+        /**
+         * Column of each parameter, key is the type character (D, I, B)
+         * followed by the component name.
+         */
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        Segment(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int version = buffer.getInt(4);
+            if (buffer.getInt(0) != ValueHistorian.MAGIC
+                    || version < 1 || version > ValueHistorian.VERSION) {
+                throw new IOException("Not a historian segment: " + file);
+            }
+            headerSize = buffer.getInt(8);
+            recordSize = buffer.getInt(12);
+            nDouble = buffer.getInt(16);
+            nInt = buffer.getInt(20);
+            int nBoolean = buffer.getInt(24);
+            stepTime = buffer.getDouble(40);
+            int pos;
+            if (version == 1) {
+                // No run id, names with unsigned short length.
+                runId = 0;
+                pos = 48;
+            } else {
+                runId = buffer.getLong(ValueHistorian.RUN_ID_POS);
+                pos = ValueHistorian.NAMES_POS;
+            }
+            for (int idx = 0; idx < nDouble + nInt + nBoolean; idx++) {
+                int length;
+                if (version == 1) {
+                    length = Short.toUnsignedInt(buffer.getShort(pos));
+                    pos += Short.BYTES;
+                } else {
+                    length = buffer.getInt(pos);
+                    pos += Integer.BYTES;
+                }
+                if (length < 0 || pos + length > headerSize) {
+                    throw new IOException("Corrupt segment header: " + file);
+                }
+                byte[] name = new byte[length];
+                buffer.get(pos, name);
+                pos += length;
+                char type;
+                int column;
+                if (idx < nDouble) {
+                    type = 'D';
+                    column = idx;
+                } else if (idx < nDouble + nInt) {
+                    type = 'I';
+                    column = idx - nDouble;
+                } else {
+                    type = 'B';
+                    column = idx - nDouble - nInt;
+                }
+                columns.put(type + new String(name, StandardCharsets.UTF_8),
+                        column);
+            }
+        }
+
+        int getRecordCount() {
+            return buffer.getInt(ValueHistorian.RECORD_COUNT_POS);
+        }
+
+        long getStep(int record) {
+            return buffer.getLong(headerSize + record * recordSize);
+        }
+
+        /**
+         * Binary search for the first record with a step number equal or
+         * greater than the given step.
+         */
+        int findFirst(long step, int records) {
+            int low = 0;
+            int high = records;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (getStep(mid) < step) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        double getValue(int record, char type, int column) {
+            int pos = headerSize + record * recordSize + Long.BYTES;
+            switch (type) {
+                case 'D':
+                    return buffer.getDouble(pos + column * Double.BYTES);
+                case 'I':
+                    return buffer.getInt(pos + nDouble * Double.BYTES
+                            + column * Integer.BYTES);
+                default:
+                    int bits = buffer.get(pos + nDouble * Double.BYTES
+                            + nInt * Integer.BYTES + column / 8);
+                    return (bits >> (column % 8) & 1) != 0 ? 1.0 : 0.0;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+/**
+ * Values of one parameter read from the historian, with the step number of
+ * each value. Steps can have gaps if snapshots were dropped.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class HistorianSeries {
+
+    private final long[] steps;
+    private final double[] values;
+    private final double stepTime;
+
+    HistorianSeries(long[] steps, double[] values, double stepTime) {
+        this.steps = steps;
+        this.values = values;
+        this.stepTime = stepTime;
+    }
+
+    public long[] getSteps() {
+        return steps;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the time of each value, which is the step number multiplied
+     * with the step time.
+     *
+     * @return time in seconds for each value
+     */
+    public double[] getTimes() {
+        double[] times = new double[steps.length];
+        for (int idx = 0; idx < steps.length; idx++) {
+            times[idx] = steps[idx] * stepTime;
+        }
+        return times;
+    }
+}
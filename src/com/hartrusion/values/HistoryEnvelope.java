@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+/**
+ * Min, max and mean values of a history series. Each index describes all
+ * values that were set during the time between two stored history values,
+ * allowing to draw a band around the trend which does not hide short peaks.
+ * Like the history series, the newest value is on index 0.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class HistoryEnvelope {
+
+    private final float[] min;
+    private final float[] max;
+    private final float[] mean;
+
+    HistoryEnvelope(float[] min, float[] max, float[] mean) {
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+    }
+
+    public float[] getMin() {
+        return min;
+    }
+
+    public float[] getMax() {
+        return max;
+    }
+
+    public float[] getMean() {
+        return mean;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.util.Arrays;
+
+/**
+ * Describes the history that is kept for a double parameter: the number of
+ * values per tier (depth), the time dividers of the tiers and if min, max and
+ * mean envelopes are kept.
+ * <p>
+ * The ValueHandler uses the DEFAULT profile for all parameters, which is 601
+ * values with dividers 1, 2, 5, 10, 20 and 50 as it always was. Profiles can
+ * be assigned to parameters to trade memory against trend span, a parameter
+ * without a profile only holds its current value.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class HistoryProfile {
+
+    /**
+     * 601 values with dividers 1, 2, 5, 10, 20 and 50, no envelopes.
+     */
+    public static final HistoryProfile DEFAULT
+            = new HistoryProfile(601, false, 1, 2, 5, 10, 20, 50);
+
+    private final int depth;
+    private final boolean envelope;
+    private final int[] dividers;
+
+    /**
+     * Creates a profile.
+     *
+     * @param depth Number of values of each tier.
+     * @param envelope true to keep min, max and mean values in tiers with a
+     * divider greater than 1.
+     * @param dividers Time dividers of the tiers in ascending order, each nTh
+     * value will be stored in the tier.
+     */
+    public HistoryProfile(int depth, boolean envelope, int... dividers) {
+        if (depth < 2) {
+            throw new IllegalArgumentException(
+                    "depth must be at least 2.");
+        }
+        if (dividers.length == 0) {
+            throw new IllegalArgumentException(
+                    "At least one divider is required.");
+        }
+        for (int idx = 0; idx < dividers.length; idx++) {
+            if (dividers[idx] < 1
+                    || idx > 0 && dividers[idx] <= dividers[idx - 1]) {
+                throw new IllegalArgumentException("Dividers must be "
+                        + "positive and in ascending order.");
+            }
+        }
+        this.depth = depth;
+        this.envelope = envelope;
+        this.dividers = dividers.clone();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean hasEnvelope() {
+        return envelope;
+    }
+
+    public int[] getDividers() {
+        return dividers.clone();
+    }
+
+    int getTierCount() {
+        return dividers.length;
+    }
+
+    int getDivider(int tierIndex) {
+        return dividers[tierIndex];
+    }
+
+    /**
+     * Returns a profile with the same depth and dividers and the given
+     * envelope setting.
+     *
+     * @param envelope true to keep min, max and mean values.
+     * @return HistoryProfile
+     */
+    public HistoryProfile withEnvelope(boolean envelope) {
+        if (envelope == this.envelope) {
+            return this;
+        }
+        return new HistoryProfile(depth, envelope, dividers);
+    }
+
+    /**
+     * Creates the heap based history tiers for this profile.
+     *
+     * @return HistoryTier array in the order of the dividers.
+     */
+    HistoryTier[] createTiers() {
+        HistoryTier[] tiers = new HistoryTier[dividers.length];
+        for (int idx = 0; idx < dividers.length; idx++) {
+            tiers[idx] = new HistoryTier(dividers[idx], depth,
+                    envelope && dividers[idx] > 1);
+        }
+        return tiers;
+    }
+
+    /**
+     * Creates a time scale for a tier, 0.0 at index 0 and negative values
+     * after that.
+     *
+     * @param div Time divider, must be one of this profiles dividers.
+     * @param stepTime Step time in seconds.
+     * @param unit Time unit in seconds, 60.0 will return minutes.
+     * @return float[] with depth time values
+     */
+    float[] createTimeScale(int div, double stepTime, double unit) {
+        checkDivider(div);
+        float[] times = new float[depth];
+        for (int idx = 1; idx < depth; idx++) {
+            times[idx] = -(float) (idx * stepTime * div / unit);
+        }
+        return times;
+    }
+
+    private void checkDivider(int div) {
+        for (int d : dividers) {
+            if (d == div) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Wrong div argument.");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HistoryProfile)) {
+            return false;
+        }
+        HistoryProfile other = (HistoryProfile) obj;
+        return depth == other.depth && envelope == other.envelope
+                && Arrays.equals(dividers, other.dividers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * depth + (envelope ? 1 : 0))
+                + Arrays.hashCode(dividers);
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryProfile[depth=" + depth + ", dividers="
+                + Arrays.toString(dividers) + ", envelope=" + envelope + "]";
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+/**
+ * Queries on the history of a double value. Selects the history tier which
+ * fits a requested time range best and reads only the required part of it.
+ * <p>
+ * Time is given in seconds relative to the newest value like the time scales
+ * of the ValueHandler, 0.0 is the newest value and past values have negative
+ * time values.
+ * <p>
+ * The selected tier is copied as it was after a given number of writes before
+ * any calculation is done, like the series of a ValueSnapshot. Using the
+ * write count of a snapshot, queries can run on any thread while the values
+ * are written.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class HistoryQuery {
+
+    private HistoryQuery() {
+        // static methods only
+    }
+
+    /**
+     * Selects the tier with the smallest divider that covers the time range
+     * with not more than maxPoints values. If no tier fulfills both, the
+     * covering tier with the largest divider is used, or the one with the
+     * longest time span if none covers the range.
+     */
+    static HistoryTier selectTier(PrimitiveDoubleValue param,
+            double stepTime, double fromTime, double toTime, int maxPoints) {
+        if (!param.hasHistory()) {
+            throw new IllegalArgumentException(
+                    "Parameter has no history profile.");
+        }
+        HistoryTier covering = null;
+        HistoryTier longest = null;
+        for (HistoryTier tier : param.getTiers()) {
+            double dt = tier.getDivisor() * stepTime;
+            boolean covers = (tier.getDepth() - 1) * dt >= -fromTime;
+            if (covers) {
+                if ((toTime - fromTime) / dt + 1 <= maxPoints) {
+                    return tier;
+                }
+                covering = tier;
+            }
+            if (longest == null || tier.getDivisor() > longest.getDivisor()) {
+                longest = tier;
+            }
+        }
+        return covering != null ? covering : longest;
+    }
+
+    /**
+     * Reads the values of a time range from the selected tier. If the tier
+     * holds more than maxPoints values in the range, only every nTh value is
+     * returned, the envelope then includes the skipped values.
+     */
+    static TrendSeries query(PrimitiveDoubleValue param, long atWrites,
+            double stepTime, double fromTime, double toTime, int maxPoints) {
+        checkRange(fromTime, toTime);
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException(
+                    "maxPoints must be a positive value.");
+        }
+        HistoryTier tier = selectTier(param, stepTime, fromTime, toTime,
+                maxPoints);
+        Copy copy = new Copy(param, tier, atWrites);
+        double dt = tier.getDivisor() * stepTime;
+        int first = firstAge(toTime, dt);
+        int last = lastAge(copy, fromTime, dt);
+        int available = Math.max(0, last - first + 1);
+        int stride = (available + maxPoints - 1) / maxPoints;
+        int count = stride == 0 ? 0 : (available + stride - 1) / stride;
+
+        float[] times = new float[count];
+        float[] values = new float[count];
+        float[] min = copy.min != null ? new float[count] : null;
+        float[] max = copy.min != null ? new float[count] : null;
+        for (int idx = 0; idx < count; idx++) {
+            int age = first + idx * stride;
+            times[idx] = (float) (-age * dt);
+            values[idx] = copy.values[age];
+            if (min != null) {
+                float low = copy.min[age];
+                float high = copy.max[age];
+                int end = Math.min(age + stride - 1, last);
+                for (int skipped = age + 1; skipped <= end; skipped++) {
+                    // NaN is replaced by the first valid value.
+                    float value = copy.min[skipped];
+                    low = value < low || Float.isNaN(low) ? value : low;
+                    value = copy.max[skipped];
+                    high = value > high || Float.isNaN(high) ? value : high;
+                }
+                min[idx] = low;
+                max[idx] = high;
+            }
+        }
+        return new TrendSeries(tier.getDivisor(), times, values, min, max);
+    }
+
+    /**
+     * Calculates aggregates over a time range. The tier with the smallest
+     * divider which covers the range is used. If it keeps an envelope, the
+     * min, max and mean values of each bucket are used, which include all
+     * values that were set and not only the stored ones.
+     */
+    static ValueAggregate aggregate(PrimitiveDoubleValue param,
+            long atWrites, double stepTime, double fromTime, double toTime) {
+        checkRange(fromTime, toTime);
+        HistoryTier tier = selectTier(param, stepTime, fromTime, toTime,
+                Integer.MAX_VALUE);
+        Copy copy = new Copy(param, tier, atWrites);
+        double dt = tier.getDivisor() * stepTime;
+        int first = firstAge(toTime, dt);
+        int last = lastAge(copy, fromTime, dt);
+
+        double min = Double.NaN;
+        double max = Double.NaN;
+        double sum = 0.0;
+        int count = 0;
+        for (int age = first; age <= last; age++) {
+            double low, high, mean;
+            if (copy.min != null) {
+                low = copy.min[age];
+                high = copy.max[age];
+                mean = copy.mean[age];
+            } else {
+                low = high = mean = copy.values[age];
+            }
+            if (Double.isNaN(mean)) {
+                continue;
+            }
+            // NaN in min or max is replaced by the first valid value.
+            min = !(min <= low) ? low : min;
+            max = !(max >= high) ? high : max;
+            sum += mean;
+            count++;
+        }
+        double lastValue = first <= last ? copy.values[first] : Double.NaN;
+        return new ValueAggregate(tier.getDivisor(), count, min, max,
+                count > 0 ? sum / count : Double.NaN, lastValue, sum * dt);
+    }
+
+    private static void checkRange(double fromTime, double toTime) {
+        if (fromTime > toTime || toTime > 0.0) {
+            throw new IllegalArgumentException("Time range must be given "
+                    + "with fromTime <= toTime <= 0.0.");
+        }
+    }
+
+    /**
+     * Age of the newest value within the range.
+     */
+    private static int firstAge(double toTime, double dt) {
+        return (int) Math.ceil(-toTime / dt - 1e-6);
+    }
+
+    /**
+     * Age of the oldest value within the range, limited to the values which
+     * were stored already.
+     */
+    private static int lastAge(Copy copy, double fromTime, double dt) {
+        long last = Math.min((long) Math.floor(-fromTime / dt + 1e-6),
+                Math.min(copy.stored, copy.values.length) - 1);
+        return (int) last;
+    }
+
+    /**
+     * Copy of a tier, newest value on index 0.
+     */
+    private static final class Copy {
+
+        private final float[] values;
+        private final float[] min, max, mean;
+        private final long stored;
+
+        Copy(PrimitiveDoubleValue param, HistoryTier tier, long atWrites) {
+            int depth = tier.getDepth();
+            values = new float[depth];
+            if (tier.hasEnvelope()) {
+                min = new float[depth];
+                max = new float[depth];
+                mean = new float[depth];
+            } else {
+                min = max = mean = null;
+            }
+            stored = tier.getStoredCount(atWrites);
+            param.copyTier(tier, atWrites, values, min, max, mean);
+        }
+    }
+}
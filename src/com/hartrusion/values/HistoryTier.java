@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.nio.FloatBuffer;
+
+/**
+ * One decimated history series of a double value, stored as a ring buffer.
+ * Every nTh offered value (n being the divisor) is written to the ring, the
+ * oldest value gets overwritten. The ring is written backwards so the newest
+ * value is always at the head index, which allows copying the series in the
+ * newest-first order with two bulk copies.
+ * <p>
+ * The ring is a FloatBuffer, it is either a heap buffer or a view into the
+ * off-heap region of a ColumnarHistoryStore.
+ * <p>
+ * Optionally, the tier keeps an envelope: for each stored value, the minimum,
+ * maximum and mean of all values offered since the previous stored value
+ * (the bucket) are stored in three additional rings with the same index. The
+ * envelope is accumulated with each offered value, so short spikes which
+ * would not be part of the decimated series are still visible.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class HistoryTier {
+
+    private final int divisor;
+
+    /**
+     * Counts down the offered values, starts with 1 so the very first value
+     * gets inserted in all tiers.
+     */
+    private int divCount = 1;
+
+    private final FloatBuffer ring;
+    private final int depth;
+
+    /**
+     * Envelope rings, null if no envelope is kept.
+     */
+    private final FloatBuffer ringMin, ringMax, ringMean;
+
+    private float bucketMin = Float.POSITIVE_INFINITY;
+    private float bucketMax = Float.NEGATIVE_INFINITY;
+    private double bucketSum;
+    private int bucketCount;
+
+    /**
+     * Index of the newest value in the ring.
+     */
+    private int head = 0;
+
+    HistoryTier(int divisor, int depth, boolean envelope) {
+        this(divisor, FloatBuffer.allocate(depth),
+                envelope ? FloatBuffer.allocate(depth) : null,
+                envelope ? FloatBuffer.allocate(depth) : null,
+                envelope ? FloatBuffer.allocate(depth) : null);
+    }
+
+    /**
+     * Creates a tier which uses provided buffers as rings, the whole capacity
+     * of the buffers is used.
+     *
+     * @param divisor Every nTh value will be stored.
+     * @param ring Buffer to use, the contents will be overwritten.
+     * @param ringMin Buffer for bucket minimum values or null.
+     * @param ringMax Buffer for bucket maximum values or null.
+     * @param ringMean Buffer for bucket mean values or null.
+     */
+    HistoryTier(int divisor, FloatBuffer ring, FloatBuffer ringMin,
+            FloatBuffer ringMax, FloatBuffer ringMean) {
+        this.divisor = divisor;
+        this.ring = ring;
+        this.ringMin = ringMin;
+        this.ringMax = ringMax;
+        this.ringMean = ringMean;
+        depth = ring.capacity();
+        // NaN is used to mark that there is no value available yet.
+        fillNaN(ring);
+        if (ringMin != null) {
+            fillNaN(ringMin);
+            fillNaN(ringMax);
+            fillNaN(ringMean);
+        }
+    }
+
+    private static void fillNaN(FloatBuffer buffer) {
+        for (int idx = 0; idx < buffer.capacity(); idx++) {
+            buffer.put(idx, Float.NaN);
+        }
+    }
+
+    int getDivisor() {
+        return divisor;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    boolean hasEnvelope() {
+        return ringMin != null;
+    }
+
+    /**
+     * Offers a new value to this tier. It will only be stored if this is the
+     * nTh call since the last stored value.
+     *
+     * @param value value to store
+     */
+    void offer(float value) {
+        if (ringMin != null) {
+            bucketMin = Math.min(bucketMin, value);
+            bucketMax = Math.max(bucketMax, value);
+            bucketSum += value;
+            bucketCount++;
+        }
+        if (--divCount > 0) {
+            return;
+        }
+        divCount = divisor;
+        head = head == 0 ? depth - 1 : head - 1;
+        ring.put(head, value);
+        if (ringMin != null) {
+            ringMin.put(head, bucketMin);
+            ringMax.put(head, bucketMax);
+            ringMean.put(head, (float) (bucketSum / bucketCount));
+            bucketMin = Float.POSITIVE_INFINITY;
+            bucketMax = Float.NEGATIVE_INFINITY;
+            bucketSum = 0.0;
+            bucketCount = 0;
+        }
+    }
+
+    /**
+     * Returns a value from the history.
+     *
+     * @param age 0 for the newest value, depth - 1 for the oldest.
+     * @return stored value or NaN if there was none stored yet.
+     */
+    float get(int age) {
+        return ring.get(index(age));
+    }
+
+    float getMin(int age) {
+        return ringMin.get(index(age));
+    }
+
+    float getMax(int age) {
+        return ringMax.get(index(age));
+    }
+
+    float getMean(int age) {
+        return ringMean.get(index(age));
+    }
+
+    private int index(int age) {
+        int idx = head + age;
+        if (idx >= depth) {
+            idx -= depth;
+        }
+        return idx;
+    }
+
+    /**
+     * Copies the whole series to the target array with the newest value on
+     * index 0.
+     *
+     * @param target Array with at least the length of the depth.
+     */
+    void copyTo(float[] target) {
+        copyRing(ring, target);
+    }
+
+    void copyMinTo(float[] target) {
+        copyRing(ringMin, target);
+    }
+
+    void copyMaxTo(float[] target) {
+        copyRing(ringMax, target);
+    }
+
+    void copyMeanTo(float[] target) {
+        copyRing(ringMean, target);
+    }
+
+    private void copyRing(FloatBuffer source, float[] target) {
+        copyRing(source, target, head);
+    }
+
+    private void copyRing(FloatBuffer source, float[] target, int fromHead) {
+        int tail = depth - fromHead;
+        source.get(fromHead, target, 0, tail);
+        source.get(0, target, tail, fromHead);
+    }
+
+    /**
+     * Calculates how many values were stored in this tier after a number of
+     * offered values.
+     *
+     * @param offered Number of calls of the offer method
+     * @return Number of stored values
+     */
+    long getStoredCount(long offered) {
+        // The first offered value is stored, then each nTh.
+        return (offered + divisor - 1) / divisor;
+    }
+
+    /**
+     * Copies the series as it was after a given number of stored values. This
+     * can be called from a thread which is not writing the tier, as long as
+     * the tier has not been written more than depth times since then. Values
+     * which might have been overwritten in the meantime have to be marked by
+     * the caller with invalidateOldest.
+     *
+     * @param target Array with at least the length of the depth.
+     * @param stored Number of stored values at the requested state.
+     */
+    void copyTo(float[] target, long stored) {
+        copyRing(ring, target, headAt(stored));
+    }
+
+    void copyMinTo(float[] target, long stored) {
+        copyRing(ringMin, target, headAt(stored));
+    }
+
+    void copyMaxTo(float[] target, long stored) {
+        copyRing(ringMax, target, headAt(stored));
+    }
+
+    void copyMeanTo(float[] target, long stored) {
+        copyRing(ringMean, target, headAt(stored));
+    }
+
+    /**
+     * Index of the newest value after a number of stored values.
+     */
+    private int headAt(long stored) {
+        return (int) ((depth - stored % depth) % depth);
+    }
+
+    /**
+     * Sets the oldest values of a copied series to NaN.
+     *
+     * @param target Series as copied with copyTo
+     * @param count Number of values to invalidate, starting with the oldest.
+     */
+    void invalidateOldest(float[] target, long count) {
+        int first = (int) Math.max(0, depth - count);
+        for (int idx = first; idx < depth; idx++) {
+            target[idx] = Float.NaN;
+        }
+    }
+
+    /**
+     * Returns a new array with the series, newest value on index 0.
+     *
+     * @return float[] copy of the series
+     */
+    float[] toArray() {
+        float[] target = new float[depth];
+        copyTo(target);
+        return target;
+    }
+}
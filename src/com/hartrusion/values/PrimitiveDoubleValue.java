@@ -23,107 +23,315 @@
  */
 package com.hartrusion.values;
 
-import static com.hartrusion.util.ArraysExt.*;
+import com.hartrusion.mvc.UpdateReceiver;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * Holds a primitive value with arrays holding the previous values. Intended to 
  * be used by the ParameterHandler. Setting a value will insert the value in 
  * the history arrays.
+ * <p>
+ * The history is held in ring buffers, inserting a value is a constant time
+ * operation. The getValues methods return ordered copies of the history with
+ * the newest value on index 0. The ring buffers are either on the heap or
+ * provided by a ColumnarHistoryStore. Which tiers exist is defined by a
+ * HistoryProfile, a value without profile has no history at all.
+ * <p>
+ * The number of set operations is counted and published before the history
+ * gets modified. This allows reading a consistent state of the history from
+ * another thread by using a ValueSnapshot.
  * 
  * @author Viktor Alexander Hartung
  */
 public class PrimitiveDoubleValue extends AbstractValue {
 
-    private double value;
-
-    private byte divCount2 = 1;
-    private byte divCount5 = 1;
-    private byte divCount10 = 1;
-    private byte divCount20 = 1;
-    private byte divCount50 = 1;
-
-    private float[] values1 = new float[601];
-    private float[] values2 = new float[601];
-    private float[] values5 = new float[601];
-    private float[] values10 = new float[601];
-    private float[] values20 = new float[601];
-    private float[] values50 = new float[601];
-    
-    PrimitiveDoubleValue() {
-        // initialize all with NaN, used to mark that there is no value 
-        // available yet.
-        for (int idx = 0; idx < 601; idx++) {
-            values1[idx] = Float.NaN;
-            values2[idx] = Float.NaN;
-            values5[idx] = Float.NaN;
-            values10[idx] = Float.NaN;
-            values20[idx] = Float.NaN;
-            values50[idx] = Float.NaN;
-            
+    /**
+     * Volatile, as it is read by the thread that fires the changes. It is
+     * written before the value is marked as changed, so a change can not get
+     * lost between clearChanged and reading the value.
+     */
+    private volatile double value;
+
+    /**
+     * Last value that was set while the value was marked as changed, which is
+     * what was fired. A new change is only marked if the value differs more
+     * than the deadband from this value.
+     */
+    private double reference;
+    private double deadband;
+
+    /**
+     * Number of setValue calls, written with opaque access from the thread
+     * that sets the values.
+     */
+    private long writes;
+
+    private static final VarHandle WRITES;
+
+    static {
+        try {
+            WRITES = MethodHandles.lookup().findVarHandle(
+                    PrimitiveDoubleValue.class, "writes", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
         }
     }
 
+    /**
+     * History tiers in the order of the profile dividers, which is 1, 2, 5,
+     * 10, 20, 50 for the default profile. Empty if there is no history.
+     */
+    private final HistoryTier[] tiers;
+
+    /**
+     * Optional long-term archive with all values.
+     */
+    private volatile CompressedArchive archive;
+
+    PrimitiveDoubleValue() {
+        this(HistoryProfile.DEFAULT);
+    }
+
+    /**
+     * Creates the value with the history on the heap.
+     *
+     * @param profile Describes the history tiers, null for no history.
+     */
+    PrimitiveDoubleValue(HistoryProfile profile) {
+        tiers = profile == null ? new HistoryTier[0] : profile.createTiers();
+    }
+
+    /**
+     * Creates the value with the history being kept in an off-heap store.
+     *
+     * @param tiers as created by ColumnarHistoryStore.createTiers
+     */
+    PrimitiveDoubleValue(HistoryTier[] tiers) {
+        this.tiers = tiers;
+    }
+
     public double getValue() {
         return value;
     }
 
     public void setValue(double value) {
         this.value = value;
+        if (isChanged()) {
+            // Will be fired anyway, keep track of what will be fired.
+            reference = value;
+        } else if (Math.abs(value - reference) > deadband
+                || Double.isNaN(value) != Double.isNaN(reference)) {
+            reference = value;
+            markChanged();
+        }
         float fValue = (float) value;
 
-        leftShiftInsert(values1, fValue);
+        // Announce the write before the rings get modified, a reader can
+        // detect values which were overwritten while copying.
+        WRITES.setOpaque(this, writes + 1);
+        VarHandle.storeStoreFence();
 
-        // Decrement them all, note that they start initialized with "1"
-        divCount2--;
-        divCount5--;
-        divCount10--;
-        divCount20--;
-        divCount50--;
+        // Each tier counts by itself and only inserts on each nTh call.
+        for (HistoryTier tier : tiers) {
+            tier.offer(fValue);
+        }
 
-        // insert into arrays on each nTh set operation.
-        if (divCount2 <= 0) {
-            leftShiftInsert(values2, fValue);
-            divCount2 = 2;
+        if (archive != null) {
+            archive.append(value);
         }
-        if (divCount5 <= 0) {
-            leftShiftInsert(values5, fValue);
-            divCount5 = 5;
+    }
+
+    public CompressedArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Sets an archive which gets all values appended on each setValue call.
+     *
+     * @param archive CompressedArchive or null to stop archiving.
+     */
+    public void setArchive(CompressedArchive archive) {
+        this.archive = archive;
+    }
+
+    public double getDeadband() {
+        return deadband;
+    }
+
+    /**
+     * Sets a deadband for change tracking. The value will only be marked as
+     * changed if it differs more than the deadband from the value that was
+     * present on the last change. Does not affect the history.
+     *
+     * @param deadband absolute value, default: 0.0
+     */
+    public void setDeadband(double deadband) {
+        this.deadband = deadband;
+    }
+
+    @Override
+    void fireTo(ValueReceiver receiver) {
+        receiver.setParameterValue(getComponent(), value);
+    }
+
+    @Override
+    void fireTo(UpdateReceiver receiver) {
+        receiver.updateComponent(getComponent(), value);
+    }
+
+    /**
+     * Copies the history with the given divider to a provided array, newest
+     * value will be on index 0. This avoids creating new arrays on each call.
+     *
+     * @param div Time divider, can be 1, 2, 5, 10, 20 or 50.
+     * @param target Array with a length of at least the history depth.
+     */
+    public void copyValues(int div, float[] target) {
+        getTier(div).copyTo(target);
+    }
+
+    /**
+     * Returns min, max and mean values of each stored history value. For the
+     * divider 1, all three series are equal to the history itself.
+     *
+     * @param div Time divider, can be 1, 2, 5, 10, 20 or 50.
+     * @return HistoryEnvelope or null if no envelope is kept for this value.
+     */
+    public HistoryEnvelope getEnvelope(int div) {
+        HistoryTier tier = getTier(div);
+        if (tier.hasEnvelope()) {
+            float[] min = new float[tier.getDepth()];
+            float[] max = new float[tier.getDepth()];
+            float[] mean = new float[tier.getDepth()];
+            tier.copyMinTo(min);
+            tier.copyMaxTo(max);
+            tier.copyMeanTo(mean);
+            return new HistoryEnvelope(min, max, mean);
+        } else if (div == 1 && hasEnvelope()) {
+            float[] values = tier.toArray();
+            return new HistoryEnvelope(values, values, values);
         }
-        if (divCount10 <= 0) {
-            leftShiftInsert(values10, fValue);
-            divCount10 = 10;
+        return null;
+    }
+
+    /**
+     * Checks if this value keeps min, max and mean values in its history.
+     *
+     * @return true if envelopes are available.
+     */
+    public boolean hasEnvelope() {
+        return tiers.length > 0 && tiers[tiers.length - 1].hasEnvelope();
+    }
+
+    /**
+     * Checks if this value keeps a history at all.
+     *
+     * @return true if there are history tiers.
+     */
+    public boolean hasHistory() {
+        return tiers.length > 0;
+    }
+
+    /**
+     * Returns the number of setValue calls. Only to be used by the thread
+     * which sets the values.
+     *
+     * @return number of writes
+     */
+    long getWrites() {
+        return writes;
+    }
+
+
+    /**
+     * Copies the history as it was after a given number of writes. Values
+     * that were overwritten since then will be set to NaN. Can be called from
+     * any thread, provided that the state after the given number of writes
+     * was published safely to it.
+     *
+     * @param div Time divider, can be 1, 2, 5, 10, 20 or 50.
+     * @param target Array with a length of at least the history depth.
+     * @param atWrites Number of writes as returned by getWrites
+     */
+    void copyValues(int div, float[] target, long atWrites) {
+        HistoryTier tier = getTier(div);
+        long stored = tier.getStoredCount(atWrites);
+        tier.copyTo(target, stored);
+        VarHandle.loadLoadFence();
+        long now = tier.getStoredCount((long) WRITES.getOpaque(this));
+        if (now > stored) {
+            tier.invalidateOldest(target, now - stored);
         }
-        if (divCount20 <= 0) {
-            leftShiftInsert(values20, fValue);
-            divCount20 = 20;
+    }
+
+    /**
+     * Copies a tier including its envelope as it was after a given number of
+     * writes, like copyValues. Values that were overwritten since then will
+     * be set to NaN in all arrays.
+     *
+     * @param tier One of the tiers of this value.
+     * @param atWrites Number of writes as returned by getWrites
+     * @param values Target for the values, length of the tier depth.
+     * @param min Target for the bucket minimum values or null.
+     * @param max Target for the bucket maximum values or null.
+     * @param mean Target for the bucket mean values or null.
+     */
+    void copyTier(HistoryTier tier, long atWrites, float[] values,
+            float[] min, float[] max, float[] mean) {
+        long stored = tier.getStoredCount(atWrites);
+        tier.copyTo(values, stored);
+        if (min != null) {
+            tier.copyMinTo(min, stored);
+            tier.copyMaxTo(max, stored);
+            tier.copyMeanTo(mean, stored);
         }
-        if (divCount50 <= 0) {
-            leftShiftInsert(values50, fValue);
-            divCount50 = 50;
+        VarHandle.loadLoadFence();
+        long now = tier.getStoredCount((long) WRITES.getOpaque(this));
+        if (now > stored) {
+            tier.invalidateOldest(values, now - stored);
+            if (min != null) {
+                tier.invalidateOldest(min, now - stored);
+                tier.invalidateOldest(max, now - stored);
+                tier.invalidateOldest(mean, now - stored);
+            }
         }
     }
-    
+
     public float[] getValues1() {
-        return values1;
+        return getTier(1).toArray();
     }
 
     public float[] getValues2() {
-        return values2;
+        return getTier(2).toArray();
     }
 
     public float[] getValues5() {
-        return values5;
+        return getTier(5).toArray();
     }
 
     public float[] getValues10() {
-        return values10;
+        return getTier(10).toArray();
     }
 
     public float[] getValues20() {
-        return values20;
+        return getTier(20).toArray();
     }
 
     public float[] getValues50() {
-        return values50;
+        return getTier(50).toArray();
+    }
+
+    HistoryTier[] getTiers() {
+        return tiers;
+    }
+
+    HistoryTier getTier(int div) {
+        for (HistoryTier tier : tiers) {
+            if (tier.getDivisor() == div) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("Wrong div argument.");
     }
 }
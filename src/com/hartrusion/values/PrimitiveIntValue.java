@@ -23,18 +23,39 @@
  */
 package com.hartrusion.values;
 
+import com.hartrusion.mvc.UpdateReceiver;
+
 /**
  *
  * @author Viktor Alexander Hartung
  */
 public class PrimitiveIntValue extends AbstractValue {
-    private int value;
+    /**
+     * Volatile, as it is read by the thread that fires the changes. It is
+     * written before the value is marked as changed, so a change can not get
+     * lost between clearChanged and reading the value.
+     */
+    private volatile int value;
 
     public int getValue() {
         return value;
     }
 
     public void setValue(int value) {
+        int previous = this.value;
         this.value = value;
+        if (value != previous) {
+            markChanged();
+        }
+    }
+
+    @Override
+    void fireTo(ValueReceiver receiver) {
+        receiver.setParameterValue(getComponent(), value);
+    }
+
+    @Override
+    void fireTo(UpdateReceiver receiver) {
+        receiver.updateComponent(getComponent(), value);
     }
 }
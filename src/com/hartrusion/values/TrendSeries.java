@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+/**
+ * Result of a history query. Contains the values of a time range, read from
+ * the history tier that fits the requested range and number of points. The
+ * newest value is on index 0, times are relative to the newest value of the
+ * history and therefore negative.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class TrendSeries {
+
+    private final int divider;
+    private final float[] times;
+    private final float[] values;
+    private final float[] min;
+    private final float[] max;
+
+    TrendSeries(int divider, float[] times, float[] values, float[] min,
+            float[] max) {
+        this.divider = divider;
+        this.times = times;
+        this.values = values;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Divider of the history tier that was used for this result.
+     *
+     * @return 1, 2, 5, 10, 20 or 50
+     */
+    public int getDivider() {
+        return divider;
+    }
+
+    public float[] getTimes() {
+        return times;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    /**
+     * Minimum of all values set between each value and its predecessor.
+     *
+     * @return float[] or null if the value keeps no envelope.
+     */
+    public float[] getMin() {
+        return min;
+    }
+
+    /**
+     * Maximum of all values set between each value and its predecessor.
+     *
+     * @return float[] or null if the value keeps no envelope.
+     */
+    public float[] getMax() {
+        return max;
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
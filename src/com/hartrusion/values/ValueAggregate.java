@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+/**
+ * Aggregated values of a double parameter over a time range, as returned by
+ * ValueHandler.aggregate.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ValueAggregate {
+
+    private final int divider;
+    private final int count;
+    private final double min;
+    private final double max;
+    private final double average;
+    private final double last;
+    private final double integral;
+
+    ValueAggregate(int divider, int count, double min, double max,
+            double average, double last, double integral) {
+        this.divider = divider;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.average = average;
+        this.last = last;
+        this.integral = integral;
+    }
+
+    /**
+     * Divider of the history tier that was used to calculate the aggregates.
+     *
+     * @return 1, 2, 5, 10, 20 or 50
+     */
+    public int getDivider() {
+        return divider;
+    }
+
+    /**
+     * Number of history values that were used.
+     *
+     * @return count, 0 if there were no values in the range.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    /**
+     * The newest value in the time range.
+     *
+     * @return value or NaN if there were no values in the range.
+     */
+    public double getLast() {
+        return last;
+    }
+
+    /**
+     * Integral of the value over the time range, in units of the value
+     * multiplied with seconds.
+     *
+     * @return integral value
+     */
+    public double getIntegral() {
+        return integral;
+    }
+
+    @Override
+    public String toString() {
+        return "min=" + min + ", max=" + max + ", avg=" + average
+                + ", last=" + last + ", integral=" + integral
+                + " (" + count + " values, div " + divider + ")";
+    }
+}
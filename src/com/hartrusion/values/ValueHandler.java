@@ -24,8 +24,12 @@
 package com.hartrusion.values;
 
 import java.beans.PropertyChangeEvent;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import com.hartrusion.mvc.UpdateReceiver;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,7 +40,10 @@ import java.util.logging.Logger;
  * cyclic event, like all 100 milliseconds.
  * <p>
  * It holds multiple series of 601 values, one series saves each value, every
- * second, every fifth and so on. With the known step time, a time series can be
+ * second, every fifth and so on. Length and dividers of those series are
+ * defined by a HistoryProfile, which can be changed for all parameters or be
+ * assigned per parameter name or name prefix. Parameters without a profile
+ * only hold their current value. With the known step time, a time series can be
  * obtained in real time from this class.
  * <p>
  * Those history arrays always put the newest value on index 0, the provided
@@ -45,6 +52,15 @@ import java.util.logging.Logger;
  * <p>
  * The history is designed to be used by the plot library, therefor float
  * precision is used instead of double.
+ * <p>
+ * Each parameter gets an integer handle assigned on creation. Objects that
+ * write their values on each cycle can obtain the handle once with one of the
+ * register methods and then write with the handle, which is a plain array
+ * access instead of hashing the String on each call.
+ * <p>
+ * Values and histories are written by the simulation thread. To read them
+ * from other threads, the simulation thread has to call publishSnapshot after
+ * each step, readers get the latest consistent state with getSnapshot.
  *
  * @author Viktor Alexander Hartung
  */
@@ -65,30 +81,70 @@ public class ValueHandler implements ValueReceiver {
     private final Map<String, PrimitiveIntValue> parametersInt
             = new ConcurrentHashMap<>();
 
+    /**
+     * Dense arrays of all parameters, index is the handle of the parameter.
+     * Arrays grow geometrically and get replaced if they are full, only the
+     * first count entries are used. The count is written after the entry, so
+     * readers never see a handle without its parameter.
+     */
+    private volatile PrimitiveBooleanValue[] booleanHandles
+            = new PrimitiveBooleanValue[0];
+    private volatile PrimitiveDoubleValue[] doubleHandles
+            = new PrimitiveDoubleValue[0];
+    private volatile PrimitiveIntValue[] intHandles
+            = new PrimitiveIntValue[0];
+    private volatile int booleanCount;
+    private volatile int doubleCount;
+    private volatile int intCount;
+
+    /**
+     * Holds all values that were changed since they were fired the last time
+     * with one of the fireChanged methods. Each value is only present once.
+     */
+    private final Queue<AbstractValue> changedValues
+            = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Optional off-heap storage for the double value histories.
+     */
+    private ColumnarHistoryStore historyStore;
+
+    /**
+     * History profile for double parameters which have no own profile
+     * assigned, null means no history.
+     */
+    private volatile HistoryProfile defaultProfile = HistoryProfile.DEFAULT;
+
+    /**
+     * Profiles assigned by exact parameter name and by name prefix. The value
+     * null in those maps means no history for the parameter.
+     */
+    private final Map<String, HistoryProfile> profiles = new HashMap<>();
+    private final Map<String, HistoryProfile> prefixProfiles
+            = new HashMap<>();
+
+    /**
+     * Latest published snapshot.
+     */
+    private volatile ValueSnapshot snapshot;
+    private long snapshotStep;
+
+    /**
+     * Optional historian which gets each published snapshot.
+     */
+    private ValueHistorian historian;
+
     /**
      * Step time in Seconds, used to initialize the time series scales of each
      * parameter object on creation.
      */
-    private double stepTime;
-
-    private float[] times1 = new float[601];
-    private float[] times2 = new float[601];
-    private float[] times5 = new float[601];
-    private float[] times10 = new float[601];
-    private float[] times20 = new float[601];
-    private float[] times50 = new float[601];
-    private float[] times1d60 = new float[601];
-    private float[] times2d60 = new float[601];
-    private float[] times5d60 = new float[601];
-    private float[] times10d60 = new float[601];
-    private float[] times20d60 = new float[601];
-    private float[] times50d60 = new float[601];
-    private float[] times1d3600 = new float[601];
-    private float[] times2d3600 = new float[601];
-    private float[] times5d3600 = new float[601];
-    private float[] times10d3600 = new float[601];
-    private float[] times20d3600 = new float[601];
-    private float[] times50d3600 = new float[601];
+    private volatile double stepTime;
+
+    /**
+     * Time scales of the default profile, replaced as a whole so readers on
+     * other threads always get matching profile and scales.
+     */
+    private volatile TimeScales timeScales = new TimeScales(null, 0.0);
 
     /**
      * To set a parameter via PropertyChangeEvent, used in GUIs.
@@ -107,41 +163,284 @@ public class ValueHandler implements ValueReceiver {
 
     @Override
     public void setParameterValue(String component, boolean value) {
-        if (parametersBoolean.containsKey(component)) {
-            parametersBoolean.get(component).setValue(value);
-        } else {
-            PrimitiveBooleanValue param = new PrimitiveBooleanValue();
-            param.setComponent(component);
-            param.setValue(value);
-            parametersBoolean.put(component, param);
-            LOGGER.log(Level.INFO, "New boolean parameter: " + component);
+        PrimitiveBooleanValue param = parametersBoolean.get(component);
+        if (param == null) {
+            param = createBoolean(component);
         }
+        param.setValue(value);
     }
 
     @Override
     public void setParameterValue(String component, double value) {
-        if (parametersDouble.containsKey(component)) {
-            parametersDouble.get(component).setValue(value);
-        } else {
-            PrimitiveDoubleValue param = new PrimitiveDoubleValue();
-            param.setComponent(component);
-            param.setValue(value);
-            parametersDouble.put(component, param);
-            LOGGER.log(Level.INFO, "New double parameter: " + component);
+        PrimitiveDoubleValue param = parametersDouble.get(component);
+        if (param == null) {
+            param = createDouble(component);
         }
+        param.setValue(value);
     }
 
     @Override
     public void setParameterValue(String component, int value) {
-        if (parametersInt.containsKey(component)) {
-            parametersInt.get(component).setValue(value);
-        } else {
-            PrimitiveIntValue param = new PrimitiveIntValue();
-            param.setComponent(component);
-            param.setValue(value);
-            parametersInt.put(component, param);
-            LOGGER.log(Level.INFO, "New int parameter: " + component);
+        PrimitiveIntValue param = parametersInt.get(component);
+        if (param == null) {
+            param = createInt(component);
+        }
+        param.setValue(value);
+    }
+
+    /**
+     * Returns the handle of a boolean parameter. The parameter will be created
+     * if it does not exist yet. The handle stays valid for the lifetime of
+     * this instance and can be used with setParameterBoolean.
+     *
+     * @param component String to identify the value.
+     * @return handle of the parameter
+     */
+    public int registerParameterBoolean(String component) {
+        PrimitiveBooleanValue param = parametersBoolean.get(component);
+        if (param == null) {
+            param = createBoolean(component);
+        }
+        return param.getHandle();
+    }
+
+    /**
+     * Returns the handle of a double parameter. The parameter will be created
+     * if it does not exist yet. The handle stays valid for the lifetime of
+     * this instance and can be used with setParameterDouble.
+     *
+     * @param component String to identify the value.
+     * @return handle of the parameter
+     */
+    public int registerParameterDouble(String component) {
+        PrimitiveDoubleValue param = parametersDouble.get(component);
+        if (param == null) {
+            param = createDouble(component);
+        }
+        return param.getHandle();
+    }
+
+    /**
+     * Returns the handle of an int parameter. The parameter will be created
+     * if it does not exist yet. The handle stays valid for the lifetime of
+     * this instance and can be used with setParameterInt.
+     *
+     * @param component String to identify the value.
+     * @return handle of the parameter
+     */
+    public int registerParameterInt(String component) {
+        PrimitiveIntValue param = parametersInt.get(component);
+        if (param == null) {
+            param = createInt(component);
+        }
+        return param.getHandle();
+    }
+
+    /**
+     * Sets a boolean parameter value by its handle.
+     *
+     * @param handle as returned by registerParameterBoolean
+     * @param value new value
+     */
+    public void setParameterBoolean(int handle, boolean value) {
+        booleanHandles[handle].setValue(value);
+    }
+
+    /**
+     * Sets a double parameter value by its handle.
+     *
+     * @param handle as returned by registerParameterDouble
+     * @param value new value
+     */
+    public void setParameterDouble(int handle, double value) {
+        doubleHandles[handle].setValue(value);
+    }
+
+    /**
+     * Sets an int parameter value by its handle.
+     *
+     * @param handle as returned by registerParameterInt
+     * @param value new value
+     */
+    public void setParameterInt(int handle, int value) {
+        intHandles[handle].setValue(value);
+    }
+
+    private synchronized PrimitiveBooleanValue createBoolean(String component) {
+        PrimitiveBooleanValue param = parametersBoolean.get(component);
+        if (param != null) {
+            return param; // created by another thread in the meantime
+        }
+        param = new PrimitiveBooleanValue();
+        param.setComponent(component);
+        param.setHandle(booleanCount);
+        PrimitiveBooleanValue[] handles = booleanHandles;
+        if (booleanCount == handles.length) {
+            handles = Arrays.copyOf(handles, grow(handles.length));
+        }
+        handles[booleanCount] = param;
+        booleanHandles = handles;
+        booleanCount++;
+        parametersBoolean.put(component, param);
+        param.setChangeQueue(changedValues);
+        param.markChanged();
+        LOGGER.log(Level.INFO, "New boolean parameter: " + component);
+        return param;
+    }
+
+    private synchronized PrimitiveDoubleValue createDouble(String component) {
+        PrimitiveDoubleValue param = parametersDouble.get(component);
+        if (param != null) {
+            return param;
+        }
+        param = newDoubleValue(component);
+        param.setComponent(component);
+        param.setHandle(doubleCount);
+        PrimitiveDoubleValue[] handles = doubleHandles;
+        if (doubleCount == handles.length) {
+            handles = Arrays.copyOf(handles, grow(handles.length));
+        }
+        handles[doubleCount] = param;
+        doubleHandles = handles;
+        doubleCount++;
+        parametersDouble.put(component, param);
+        param.setChangeQueue(changedValues);
+        param.markChanged();
+        LOGGER.log(Level.INFO, "New double parameter: " + component);
+        return param;
+    }
+
+    private PrimitiveDoubleValue newDoubleValue(String component) {
+        HistoryProfile profile = getHistoryProfile(component);
+        if (profile == null) {
+            return new PrimitiveDoubleValue((HistoryProfile) null);
+        }
+        if (historyStore != null
+                && historyStore.getProfile().equals(profile)) {
+            int slot = historyStore.allocateSlot();
+            if (slot >= 0) {
+                return new PrimitiveDoubleValue(historyStore.createTiers(slot));
+            }
+            LOGGER.log(Level.WARNING, "History store is full, history of "
+                    + component + " will be kept on heap.");
+        }
+        return new PrimitiveDoubleValue(profile);
+    }
+
+    /**
+     * Returns the history profile that will be used for a double parameter
+     * with the given name. An exact name assignment is used first, then the
+     * longest matching prefix and then the default profile.
+     *
+     * @param component String to identify the value.
+     * @return HistoryProfile or null if no history will be kept.
+     */
+    public synchronized HistoryProfile getHistoryProfile(String component) {
+        if (profiles.containsKey(component)) {
+            return profiles.get(component);
+        }
+        String match = null;
+        for (String prefix : prefixProfiles.keySet()) {
+            if (component.startsWith(prefix)
+                    && (match == null || prefix.length() > match.length())) {
+                match = prefix;
+            }
+        }
+        if (match != null) {
+            return prefixProfiles.get(match);
+        }
+        return defaultProfile;
+    }
+
+    /**
+     * Sets the history profile for all double parameters that get created
+     * after this call and have no other profile assigned. Also defines the
+     * time scales returned by getTime, getTime60 and getTime3600.
+     *
+     * @param profile HistoryProfile or null to keep no history by default.
+     */
+    public synchronized void setDefaultHistoryProfile(HistoryProfile profile) {
+        defaultProfile = profile;
+        updateTimeScales();
+    }
+
+    /**
+     * Assigns a history profile to a double parameter. Must be called before
+     * the parameter is created, which usually happens with its first set
+     * call.
+     *
+     * @param component String to identify the value.
+     * @param profile HistoryProfile or null to keep no history.
+     */
+    public synchronized void setHistoryProfile(String component,
+            HistoryProfile profile) {
+        profiles.put(component, profile);
+    }
+
+    /**
+     * Assigns a history profile to all double parameters which names start
+     * with the given prefix. If multiple prefixes match, the longest one is
+     * used. Must be called before the parameters are created.
+     *
+     * @param prefix Start of the parameter names, like "Primary#".
+     * @param profile HistoryProfile or null to keep no history.
+     */
+    public synchronized void setHistoryProfilePrefix(String prefix,
+            HistoryProfile profile) {
+        prefixProfiles.put(prefix, profile);
+    }
+
+    /**
+     * Enables keeping min, max and mean values of each stored value in the
+     * history tiers with a divider greater than 1, for all double parameters
+     * that get created after this call. This requires four times the memory
+     * for those tiers. This changes the default history profile, a history
+     * store is only used if its profile matches the profile of the parameter.
+     *
+     * @param envelope true to keep min, max and mean values.
+     */
+    public synchronized void setEnvelopeEnabled(boolean envelope) {
+        if (defaultProfile != null) {
+            defaultProfile = defaultProfile.withEnvelope(envelope);
+        }
+    }
+
+    /**
+     * Sets an off-heap store which will hold the history of all double
+     * parameters that get created after this call. Parameters that already
+     * exist keep their history on the heap. If the store runs out of
+     * capacity, further parameters will use the heap again.
+     *
+     * @param store ColumnarHistoryStore instance or null to use the heap.
+     */
+    public synchronized void setHistoryStore(ColumnarHistoryStore store) {
+        historyStore = store;
+    }
+
+    public ColumnarHistoryStore getHistoryStore() {
+        return historyStore;
+    }
+
+    private synchronized PrimitiveIntValue createInt(String component) {
+        PrimitiveIntValue param = parametersInt.get(component);
+        if (param != null) {
+            return param;
+        }
+        param = new PrimitiveIntValue();
+        param.setComponent(component);
+        param.setHandle(intCount);
+        PrimitiveIntValue[] handles = intHandles;
+        if (intCount == handles.length) {
+            handles = Arrays.copyOf(handles, grow(handles.length));
         }
+        handles[intCount] = param;
+        intHandles = handles;
+        intCount++;
+        parametersInt.put(component, param);
+        param.setChangeQueue(changedValues);
+        param.markChanged();
+        LOGGER.log(Level.INFO, "New int parameter: " + component);
+        return param;
     }
 
     /**
@@ -184,6 +483,107 @@ public class ValueHandler implements ValueReceiver {
         }
     }
 
+    /**
+     * Fires all parameters that were changed since the last call of this
+     * method or fireChangedToMvcView towards a ValueReceiver. Both methods
+     * share the same change tracking, so only one of them should be used to
+     * transfer changes.
+     *
+     * @param receiver Instance that gets the changed primitive values.
+     */
+    public void fireChangedToReceiver(ValueReceiver receiver) {
+        if (receiver == this) {
+            throw new UnsupportedOperationException(
+                    "Can not fire own data to myself.");
+        }
+        // Limit to the number of parameters as values which are changed
+        // while firing will be put in the queue again.
+        int count = getParameterCount();
+        AbstractValue param;
+        while (count-- > 0 && (param = changedValues.poll()) != null) {
+            param.clearChanged();
+            param.fireTo(receiver);
+        }
+    }
+
+    /**
+     * Fires all parameters that were changed since the last call of this
+     * method or fireChangedToReceiver to an update receiver. The cost of this
+     * method depends on the number of changed values, not on the number of
+     * known parameters.
+     *
+     * @param receiver A view instance
+     */
+    public void fireChangedToMvcView(UpdateReceiver receiver) {
+        int count = getParameterCount();
+        AbstractValue param;
+        while (count-- > 0 && (param = changedValues.poll()) != null) {
+            param.clearChanged();
+            param.fireTo(receiver);
+        }
+    }
+
+    private static int grow(int length) {
+        return Math.max(16, length * 2);
+    }
+
+    private int getParameterCount() {
+        return booleanCount + doubleCount + intCount;
+    }
+
+    /**
+     * Sets a deadband for the change tracking of a double parameter. Changes
+     * of the value smaller than the deadband will not be fired by the
+     * fireChanged methods. The parameter gets created if it does not exist.
+     *
+     * @param component String to identify the value.
+     * @param deadband absolute value, default: 0.0
+     */
+    public void setDeadband(String component, double deadband) {
+        doubleHandles[registerParameterDouble(component)]
+                .setDeadband(deadband);
+    }
+
+    /**
+     * Publishes the current state of all values as an immutable snapshot.
+     * This has to be called by the thread that writes the values, once after
+     * all values of a simulation step were set. Current values are copied,
+     * histories are not.
+     *
+     * @return the published snapshot
+     */
+    public ValueSnapshot publishSnapshot() {
+        ValueSnapshot s = new ValueSnapshot(++snapshotStep, stepTime,
+                parametersBoolean, parametersDouble, parametersInt,
+                booleanHandles, booleanCount, doubleHandles, doubleCount,
+                intHandles, intCount);
+        snapshot = s;
+        if (historian != null) {
+            historian.append(s);
+        }
+        return s;
+    }
+
+    /**
+     * Sets a historian which will get each snapshot appended that is
+     * published with publishSnapshot.
+     *
+     * @param historian ValueHistorian instance or null to remove it.
+     */
+    public void setHistorian(ValueHistorian historian) {
+        this.historian = historian;
+    }
+
+    /**
+     * Returns the latest snapshot published by publishSnapshot. Can be called
+     * from any thread without blocking the simulation.
+     *
+     * @return latest ValueSnapshot or null if none was published yet.
+     */
+    public ValueSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     public boolean getParameterBoolean(String component) {
         return parametersBoolean.get(component).isValue();
     }
@@ -196,6 +596,18 @@ public class ValueHandler implements ValueReceiver {
         return parametersDouble.get(component).getValue();
     }
 
+    public boolean getParameterBoolean(int handle) {
+        return booleanHandles[handle].isValue();
+    }
+
+    public int getParameterInt(int handle) {
+        return intHandles[handle].getValue();
+    }
+
+    public double getParameterDouble(int handle) {
+        return doubleHandles[handle].getValue();
+    }
+
     /**
      * Sets the time difference between each setParameterValue call. This
      * initializes the time series arrays.
@@ -205,30 +617,12 @@ public class ValueHandler implements ValueReceiver {
     public void setStepTime(double stepTime) {
         this.stepTime = stepTime;
 
-        for (int idx = 1; idx < 601; idx++) {
-            times1[idx] = -(float) idx * (float) stepTime;
-            times2[idx] = -(float) idx * (float) stepTime * 2.0F;
-            times5[idx] = -(float) idx * (float) stepTime * 5.0F;
-            times10[idx] = -(float) idx * (float) stepTime * 10.0F;
-            times20[idx] = -(float) idx * (float) stepTime * 20.0F;
-            times50[idx] = -(float) idx * (float) stepTime * 50.0F;
-            times1d60[idx] = -(float) idx * (float) stepTime / 60.0F;
-            times2d60[idx] = -(float) idx * (float) stepTime * 2.0F / 60.0F;
-            times5d60[idx] = -(float) idx * (float) stepTime * 5.0F / 60.0F;
-            times10d60[idx] = -(float) idx * (float) stepTime * 10.0F / 60.0F;
-            times20d60[idx] = -(float) idx * (float) stepTime * 20.0F / 60.0F;
-            times50d60[idx] = -(float) idx * (float) stepTime * 50.0F / 60.0F;
-            times1d3600[idx] = -(float) idx * (float) stepTime / 3600.0F;
-            times2d3600[idx] = -(float) idx * (float) stepTime * 2.0F / 3600.0F;
-            times5d3600[idx] = -(float) idx * (float) stepTime * 5.0F / 3600.0F;
-            times10d3600[idx] = -(float) idx * (float) stepTime * 10.0F / 3600.0F;
-            times20d3600[idx] = -(float) idx * (float) stepTime * 20.0F / 3600.0F;
-            times50d3600[idx] = -(float) idx * (float) stepTime * 50.0F / 3600.0F;
-        }
+        updateTimeScales();
     }
 
     /**
-     * Returns a history (array) of a double parameter value.
+     * Returns a history (array) of a double parameter value. The returned
+     * array is a copy of the history, newest value on index 0.
      *
      * @param component String to identify the value.
      * @param div Time divider, can be 1, 2, 5, 10, 20 or 50. Describes which
@@ -236,21 +630,160 @@ public class ValueHandler implements ValueReceiver {
      * @return
      */
     public float[] getParameterDoubleSeries(String component, int div) {
-        switch (div) {
-            case 1:
-                return parametersDouble.get(component).getValues1();
-            case 2:
-                return parametersDouble.get(component).getValues2();
-            case 5:
-                return parametersDouble.get(component).getValues5();
-            case 10:
-                return parametersDouble.get(component).getValues10();
-            case 20:
-                return parametersDouble.get(component).getValues20();
-            case 50:
-                return parametersDouble.get(component).getValues50();
-            default:
-                throw new IllegalArgumentException("Wrong div argument.");
+        return parametersDouble.get(component).getTier(div).toArray();
+    }
+
+    /**
+     * Copies the history of a double parameter value to a provided array. Can
+     * be used instead of getParameterDoubleSeries to avoid creating a new
+     * array on each call, for example on each repaint of a trend plot.
+     *
+     * @param component String to identify the value.
+     * @param div Time divider, can be 1, 2, 5, 10, 20 or 50.
+     * @param target Array with a length of at least the history depth.
+     */
+    public void getParameterDoubleSeries(String component, int div,
+            float[] target) {
+        parametersDouble.get(component).copyValues(div, target);
+    }
+
+    /**
+     * Returns the min, max and mean values of a double parameter history.
+     * Each value of the envelope describes all values that were set since the
+     * previous value of the history was stored, so short peaks are not lost
+     * with the higher dividers.
+     *
+     * @param component String to identify the value.
+     * @param div Time divider, can be 1, 2, 5, 10, 20 or 50.
+     * @return HistoryEnvelope or null if no envelope is kept for this value.
+     */
+    public HistoryEnvelope getParameterDoubleEnvelope(String component,
+            int div) {
+        return parametersDouble.get(component).getEnvelope(div);
+    }
+
+    /**
+     * Enables a compressed archive for a double parameter which keeps all of
+     * its values in full resolution from now on. The parameter gets created
+     * if it does not exist. Has no effect if there is an archive already.
+     *
+     * @param component String to identify the value.
+     * @return the CompressedArchive of the parameter
+     */
+    public CompressedArchive enableArchive(String component) {
+        PrimitiveDoubleValue param
+                = doubleHandles[registerParameterDouble(component)];
+        synchronized (param) {
+            if (param.getArchive() == null) {
+                param.setArchive(new CompressedArchive());
+            }
+            return param.getArchive();
+        }
+    }
+
+    /**
+     * Returns the compressed archive of a double parameter. Values in the
+     * archive are indexed by the number of values that were set to the
+     * parameter since the archive was enabled.
+     *
+     * @param component String to identify the value.
+     * @return CompressedArchive or null if no archive is enabled.
+     */
+    public CompressedArchive getArchive(String component) {
+        return parametersDouble.get(component).getArchive();
+    }
+
+    /**
+     * Reads the history of a double parameter within a time range. The
+     * history tier with the smallest divider that covers the range with not
+     * more than maxPoints values is selected automatically. Times are given in
+     * seconds relative to the newest value, like the time scales of getTime.
+     * <p>
+     * The history is read as it was at the latest snapshot published with
+     * publishSnapshot, so this can be called from any thread. If there is no
+     * snapshot containing the parameter, the current history is read, which
+     * is only safe on the thread that sets the values.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range, for example -600.0 for the last ten
+     * minutes.
+     * @param toTime End of the range, 0.0 for the newest value.
+     * @param maxPoints Maximum number of values that will be returned. If even
+     * the longest tier has more values in the range, only every nTh value is
+     * returned.
+     * @return TrendSeries with times and values, newest on index 0.
+     */
+    public TrendSeries query(String component, double fromTime,
+            double toTime, int maxPoints) {
+        PrimitiveDoubleValue param = parametersDouble.get(component);
+        ValueSnapshot s = snapshot;
+        if (s != null && s.contains(param)) {
+            return s.query(component, fromTime, toTime, maxPoints);
+        }
+        return HistoryQuery.query(param, param.getWrites(), stepTime,
+                fromTime, toTime, maxPoints);
+    }
+
+    /**
+     * Calculates min, max, average, last value and integral of a double
+     * parameter over a time range from its history. If the parameter keeps
+     * envelopes, those are used, so the aggregates include all set values,
+     * not only the stored ones. The history is read like with query.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range, for example -600.0.
+     * @param toTime End of the range, 0.0 for the newest value.
+     * @return ValueAggregate
+     */
+    public ValueAggregate aggregate(String component, double fromTime,
+            double toTime) {
+        PrimitiveDoubleValue param = parametersDouble.get(component);
+        ValueSnapshot s = snapshot;
+        if (s != null && s.contains(param)) {
+            return s.aggregate(component, fromTime, toTime);
+        }
+        return HistoryQuery.aggregate(param, param.getWrites(), stepTime,
+                fromTime, toTime);
+    }
+
+    private synchronized void updateTimeScales() {
+        timeScales = new TimeScales(defaultProfile, stepTime);
+    }
+
+    /**
+     * Time scales of the tiers of a profile, in seconds, minutes and hours.
+     * A new instance is created on each change, so arrays that were handed
+     * out never change.
+     */
+    private static final class TimeScales {
+
+        private final HistoryProfile profile;
+        private final float[][] times;
+        private final float[][] times60;
+        private final float[][] times3600;
+
+        TimeScales(HistoryProfile profile, double stepTime) {
+            this.profile = profile;
+            int count = profile == null ? 0 : profile.getTierCount();
+            times = new float[count][];
+            times60 = new float[count][];
+            times3600 = new float[count][];
+            for (int idx = 0; idx < count; idx++) {
+                int div = profile.getDivider(idx);
+                times[idx] = profile.createTimeScale(div, stepTime, 1.0);
+                times60[idx] = profile.createTimeScale(div, stepTime, 60.0);
+                times3600[idx] = profile.createTimeScale(div, stepTime,
+                        3600.0);
+            }
+        }
+
+        float[] get(float[][] scales, int div) {
+            for (int idx = 0; idx < scales.length; idx++) {
+                if (profile.getDivider(idx) == div) {
+                    return scales[idx];
+                }
+            }
+            throw new IllegalArgumentException("Wrong div argument.");
         }
     }
 
@@ -258,26 +791,13 @@ public class ValueHandler implements ValueReceiver {
      * Returns a time scale with the same unites as the stepTime (seconds).
      * Intended to be used with plot command.
      *
-     * @param div Can be 1, 2, 5, 10, 20 or 50
+     * @param div One of the dividers of the default history profile, which
+     * are 1, 2, 5, 10, 20 or 50 unless changed.
      * @return Array of Float with time values.
      */
     public float[] getTime(int div) {
-        switch (div) {
-            case 1:
-                return times1;
-            case 2:
-                return times2;
-            case 5:
-                return times5;
-            case 10:
-                return times10;
-            case 20:
-                return times20;
-            case 50:
-                return times50;
-            default:
-                throw new IllegalArgumentException("Wrong div argument.");
-        }
+        TimeScales scales = timeScales;
+        return scales.get(scales.times, div);
     }
 
     /**
@@ -285,26 +805,12 @@ public class ValueHandler implements ValueReceiver {
      * divided by 60 (making them minutes). Intended to be used with plot
      * command.
      *
-     * @param div Can be 1, 2, 5, 10, 20 or 50
+     * @param div One of the dividers of the default history profile.
      * @return Array of Float with time values.
      */
     public float[] getTime60(int div) {
-        switch (div) {
-            case 1:
-                return times1d60;
-            case 2:
-                return times2d60;
-            case 5:
-                return times5d60;
-            case 10:
-                return times10d60;
-            case 20:
-                return times20d60;
-            case 50:
-                return times50d60;
-            default:
-                throw new IllegalArgumentException("Wrong div argument.");
-        }
+        TimeScales scales = timeScales;
+        return scales.get(scales.times60, div);
     }
 
     /**
@@ -312,25 +818,29 @@ public class ValueHandler implements ValueReceiver {
      * divided by 3600 (making them hours). Intended to be used with plot
      * command.
      *
-     * @param div Can be 1, 2, 5, 10, 20 or 50
+     * @param div One of the dividers of the default history profile.
      * @return Array of Float with time values.
      */
     public float[] getTime3600(int div) {
-        switch (div) {
-            case 1:
-                return times1d3600;
-            case 2:
-                return times2d3600;
-            case 5:
-                return times5d3600;
-            case 10:
-                return times10d3600;
-            case 20:
-                return times20d3600;
-            case 50:
-                return times50d3600;
-            default:
-                throw new IllegalArgumentException("Wrong div argument.");
+        TimeScales scales = timeScales;
+        return scales.get(scales.times3600, div);
+    }
+
+    /**
+     * Returns a time scale in seconds matching the history of a parameter,
+     * which is required if the parameter uses a different history profile
+     * than the default one. A new array is created on each call.
+     *
+     * @param component String to identify the value.
+     * @param div One of the dividers of the profile of the parameter.
+     * @return Array of Float with time values.
+     */
+    public float[] getTime(String component, int div) {
+        HistoryTier tier = parametersDouble.get(component).getTier(div);
+        float[] scale = new float[tier.getDepth()];
+        for (int idx = 1; idx < scale.length; idx++) {
+            scale[idx] = -(float) (idx * stepTime * div);
         }
+        return scale;
     }
 }
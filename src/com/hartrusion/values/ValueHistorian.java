@@ -0,0 +1,370 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Writes the values of each simulation step to memory-mapped files on disk,
+ * allowing to keep the full history of a run beyond the 601 values per tier
+ * the ValueHandler holds in memory.
+ * <p>
+ * The historian gets published ValueSnapshots appended, those are put in a
+ * bounded queue and written by a background thread, so the simulation thread
+ * never waits for the disk. If the writer can not keep up and the queue is
+ * full, the snapshot is dropped and counted.
+ * <p>
+ * Data is written to segment files named prefix-000001.hist and so on. Each
+ * segment has a header with the parameter names followed by records of fixed
+ * width: the step number, all double values, all int values and all boolean
+ * values as bits, each in the order of their handles. A new segment is started
+ * if the current one is full or if new parameters were created. Use the
+ * HistorianReader to read the files.
+ * <p>
+ * Existing segments with the same prefix are kept, numbering continues after
+ * the highest existing segment number when the historian is started. Each
+ * segment header holds the run id, which is the time when the historian was
+ * started, so the reader can tell the runs apart as the step numbers start
+ * again on each run.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ValueHistorian {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            ValueHistorian.class.getName());
+
+    static final int MAGIC = 0x50484E48;
+    static final int VERSION = 2;
+    static final String SUFFIX = ".hist";
+
+    /**
+     * Position of the record count in the segment header, it is updated after
+     * each written record.
+     */
+    static final int RECORD_COUNT_POS = 28;
+
+    /**
+     * Position of the run id and of the first parameter name, each name is
+     * written as int length followed by the UTF-8 bytes.
+     */
+    static final int RUN_ID_POS = 48;
+    static final int NAMES_POS = 56;
+
+    private final Path directory;
+    private final String prefix;
+
+    private int segmentRecords = 36000;
+
+    private final BlockingQueue<ValueSnapshot> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    private int segmentNumber;
+    private long runId;
+    private MappedByteBuffer segment;
+    private int headerSize;
+    private int recordSize;
+    private int recordCount;
+    private int recordCapacity;
+    private int nBoolean, nDouble, nInt;
+
+    /**
+     * Creates a historian with a queue of 1024 snapshots.
+     *
+     * @param directory Directory for the segment files, will be created.
+     * @param prefix First part of the segment file names.
+     */
+    public ValueHistorian(Path directory, String prefix) {
+        this(directory, prefix, 1024);
+    }
+
+    /**
+     * Creates a historian.
+     *
+     * @param directory Directory for the segment files, will be created.
+     * @param prefix First part of the segment file names.
+     * @param queueCapacity Number of snapshots that can wait for writing.
+     */
+    public ValueHistorian(Path directory, String prefix, int queueCapacity) {
+        this.directory = directory;
+        this.prefix = prefix;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Sets the maximum number of records per segment file. Has to be set
+     * before start is called. Default: 36000, which is one hour at 100 ms.
+     * If there are many parameters, segments will hold less records, as one
+     * segment can not be larger than 2 GB.
+     *
+     * @param segmentRecords number of records
+     */
+    public void setSegmentRecords(int segmentRecords) {
+        if (segmentRecords <= 0) {
+            throw new IllegalArgumentException(
+                    "segmentRecords must be a positive value.");
+        }
+        this.segmentRecords = segmentRecords;
+    }
+
+    /**
+     * Creates the directory and starts the background writer thread.
+     *
+     * @throws IOException if the directory can not be created.
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        segmentNumber = Math.max(segmentNumber, findLastSegmentNumber());
+        runId = Math.max(System.currentTimeMillis(), runId + 1);
+        running = true;
+        writer = new Thread(this::writeLoop, "ValueHistorian-" + prefix);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread after all queued snapshots were written.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join();
+            writer = null;
+        }
+    }
+
+    /**
+     * Queues a snapshot for writing. Never blocks, if the queue is full the
+     * snapshot will be dropped.
+     *
+     * @param snapshot ValueSnapshot to write
+     * @return true if the snapshot was queued.
+     */
+    public boolean append(ValueSnapshot snapshot) {
+        if (!running || !queue.offer(snapshot)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of snapshots which were not written as the queue was full or the
+     * historian was not running.
+     *
+     * @return number of dropped snapshots
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Id of the current run which is written to the segment headers, it is
+     * the system time in ms when start was called.
+     *
+     * @return run id, 0 if the historian was not started yet.
+     */
+    public synchronized long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Returns the highest number of the existing segment files with the
+     * prefix of this historian, 0 if there are none.
+     */
+    private int findLastSegmentNumber() throws IOException {
+        String start = prefix + "-";
+        int last = 0;
+        try (Stream<Path> list = Files.list(directory)) {
+            for (Path p : (Iterable<Path>) list::iterator) {
+                String name = p.getFileName().toString();
+                if (!name.startsWith(start) || !name.endsWith(SUFFIX)) {
+                    continue;
+                }
+                String number = name.substring(start.length(),
+                        name.length() - SUFFIX.length());
+                if (!number.isEmpty() && number.length() <= 9
+                        && number.chars().allMatch(Character::isDigit)) {
+                    last = Math.max(last, Integer.parseInt(number));
+                }
+            }
+        }
+        return last;
+    }
+
+    private void writeLoop() {
+        try {
+            while (running || !queue.isEmpty()) {
+                ValueSnapshot s = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (s != null) {
+                    write(s);
+                    written.incrementAndGet();
+                }
+            }
+            if (segment != null) {
+                segment.force();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Historian stopped, failed to write "
+                    + "segment " + segmentNumber, ex);
+            running = false;
+        }
+    }
+
+    private void write(ValueSnapshot s) throws IOException {
+        if (segment == null || recordCount >= recordCapacity
+                || s.getBooleanCount() != nBoolean
+                || s.getDoubleCount() != nDouble
+                || s.getIntCount() != nInt) {
+            openSegment(s);
+        }
+        // The segment size is limited to fit an int, so the cast is safe.
+        int pos = (int) (headerSize + (long) recordCount * recordSize);
+        segment.putLong(pos, s.getStep());
+        pos += Long.BYTES;
+        for (int idx = 0; idx < nDouble; idx++) {
+            segment.putDouble(pos, s.getParameterDouble(idx));
+            pos += Double.BYTES;
+        }
+        for (int idx = 0; idx < nInt; idx++) {
+            segment.putInt(pos, s.getParameterInt(idx));
+            pos += Integer.BYTES;
+        }
+        for (int idx = 0; idx < nBoolean; idx += 8) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && idx + bit < nBoolean; bit++) {
+                if (s.getParameterBoolean(idx + bit)) {
+                    bits |= 1 << bit;
+                }
+            }
+            segment.put(pos++, (byte) bits);
+        }
+        recordCount++;
+        segment.putInt(RECORD_COUNT_POS, recordCount);
+    }
+
+    private void openSegment(ValueSnapshot s) throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        nBoolean = s.getBooleanCount();
+        nDouble = s.getDoubleCount();
+        nInt = s.getIntCount();
+        long size = align(Long.BYTES + (long) nDouble * Double.BYTES
+                + (long) nInt * Integer.BYTES + (nBoolean + 7) / 8);
+
+        byte[][] names = new byte[nBoolean + nDouble + nInt][];
+        long namesSize = 0;
+        int n = 0;
+        for (int idx = 0; idx < nDouble; idx++) {
+            names[n] = s.getDoubleComponent(idx)
+                    .getBytes(StandardCharsets.UTF_8);
+            namesSize += Integer.BYTES + names[n++].length;
+        }
+        for (int idx = 0; idx < nInt; idx++) {
+            names[n] = s.getIntComponent(idx)
+                    .getBytes(StandardCharsets.UTF_8);
+            namesSize += Integer.BYTES + names[n++].length;
+        }
+        for (int idx = 0; idx < nBoolean; idx++) {
+            names[n] = s.getBooleanComponent(idx)
+                    .getBytes(StandardCharsets.UTF_8);
+            namesSize += Integer.BYTES + names[n++].length;
+        }
+        long header = align(NAMES_POS + namesSize);
+        // A mapped buffer is limited to Integer.MAX_VALUE bytes.
+        long capacity = Math.min(segmentRecords,
+                (Integer.MAX_VALUE - header) / size);
+        if (capacity < 1) {
+            throw new IOException("Parameters do not fit into a segment.");
+        }
+        recordSize = (int) size;
+        headerSize = (int) header;
+        recordCapacity = (int) capacity;
+
+        segmentNumber++;
+        Path file = directory.resolve(String.format("%s-%06d%s",
+                prefix, segmentNumber, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    headerSize + (long) recordCapacity * recordSize);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        recordCount = 0;
+
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putInt(8, headerSize);
+        segment.putInt(12, recordSize);
+        segment.putInt(16, nDouble);
+        segment.putInt(20, nInt);
+        segment.putInt(24, nBoolean);
+        segment.putInt(RECORD_COUNT_POS, 0);
+        segment.putInt(32, recordCapacity);
+        segment.putDouble(40, s.getStepTime());
+        segment.putLong(RUN_ID_POS, runId);
+        int pos = NAMES_POS;
+        for (byte[] name : names) {
+            segment.putInt(pos, name.length);
+            segment.put(pos + Integer.BYTES, name);
+            pos += Integer.BYTES + name.length;
+        }
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.values;
+
+import java.util.Map;
+
+/**
+ * Immutable state of all values of a ValueHandler at the end of a simulation
+ * step. Snapshots are created by ValueHandler.publishSnapshot and can be read
+ * from any thread without locking, for example to draw trend plots in the
+ * swing thread while the simulation continues.
+ * <p>
+ * Current values are copied on creation. The history series are not copied,
+ * the snapshot only holds the number of writes of each double value. The
+ * series are read from the history rings when requested, positioned at the
+ * state of the snapshot. If the simulation has overwritten the oldest values
+ * of a series in the meantime, those are returned as NaN, so a plot will
+ * never show values from different steps mixed together.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ValueSnapshot {
+
+    private final long step;
+    private final double stepTime;
+
+    private final Map<String, PrimitiveBooleanValue> parametersBoolean;
+    private final Map<String, PrimitiveDoubleValue> parametersDouble;
+    private final Map<String, PrimitiveIntValue> parametersInt;
+
+    private final PrimitiveBooleanValue[] booleanHandles;
+    private final PrimitiveDoubleValue[] doubleHandles;
+    private final PrimitiveIntValue[] intHandles;
+
+    private final boolean[] booleanValues;
+    private final double[] doubleValues;
+    private final int[] intValues;
+    private final long[] doubleWrites;
+
+    ValueSnapshot(long step, double stepTime,
+            Map<String, PrimitiveBooleanValue> parametersBoolean,
+            Map<String, PrimitiveDoubleValue> parametersDouble,
+            Map<String, PrimitiveIntValue> parametersInt,
+            PrimitiveBooleanValue[] booleanHandles, int booleanCount,
+            PrimitiveDoubleValue[] doubleHandles, int doubleCount,
+            PrimitiveIntValue[] intHandles, int intCount) {
+        this.step = step;
+        this.stepTime = stepTime;
+        this.parametersBoolean = parametersBoolean;
+        this.parametersDouble = parametersDouble;
+        this.parametersInt = parametersInt;
+        this.booleanHandles = booleanHandles;
+        this.doubleHandles = doubleHandles;
+        this.intHandles = intHandles;
+        booleanValues = new boolean[booleanCount];
+        for (int idx = 0; idx < booleanCount; idx++) {
+            booleanValues[idx] = booleanHandles[idx].isValue();
+        }
+        doubleValues = new double[doubleCount];
+        doubleWrites = new long[doubleCount];
+        for (int idx = 0; idx < doubleCount; idx++) {
+            doubleValues[idx] = doubleHandles[idx].getValue();
+            doubleWrites[idx] = doubleHandles[idx].getWrites();
+        }
+        intValues = new int[intCount];
+        for (int idx = 0; idx < intCount; idx++) {
+            intValues[idx] = intHandles[idx].getValue();
+        }
+    }
+
+    /**
+     * Number of the simulation step, counts the publishSnapshot calls of the
+     * ValueHandler.
+     *
+     * @return step number, starting with 1.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    public double getStepTime() {
+        return stepTime;
+    }
+
+    public boolean getParameterBoolean(String component) {
+        return booleanValues[handle(parametersBoolean.get(component),
+                booleanValues.length)];
+    }
+
+    public int getParameterInt(String component) {
+        return intValues[handle(parametersInt.get(component),
+                intValues.length)];
+    }
+
+    public double getParameterDouble(String component) {
+        return doubleValues[handle(parametersDouble.get(component),
+                doubleValues.length)];
+    }
+
+    public boolean getParameterBoolean(int handle) {
+        return booleanValues[handle];
+    }
+
+    public int getParameterInt(int handle) {
+        return intValues[handle];
+    }
+
+    public double getParameterDouble(int handle) {
+        return doubleValues[handle];
+    }
+
+    /**
+     * Returns a history (array) of a double parameter value as it was at the
+     * time the snapshot was created, newest value on index 0.
+     *
+     * @param component String to identify the value.
+     * @param div Time divider, one of the dividers of the history profile.
+     * @return float[] with the history
+     */
+    public float[] getParameterDoubleSeries(String component, int div) {
+        int handle = handle(parametersDouble.get(component),
+                doubleValues.length);
+        float[] target = new float[doubleHandles[handle].getTier(div)
+                .getDepth()];
+        getParameterDoubleSeries(component, div, target);
+        return target;
+    }
+
+    /**
+     * Copies the history of a double parameter value as it was at the time
+     * the snapshot was created to a provided array.
+     *
+     * @param component String to identify the value.
+     * @param div Time divider, one of the dividers of the history profile.
+     * @param target Array with a length of at least the history depth.
+     */
+    public void getParameterDoubleSeries(String component, int div,
+            float[] target) {
+        int handle = handle(parametersDouble.get(component),
+                doubleValues.length);
+        doubleHandles[handle].copyValues(div, target, doubleWrites[handle]);
+    }
+
+    /**
+     * Reads the history of a double parameter within a time range as it was
+     * at the time the snapshot was created, see ValueHandler.query.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range, for example -600.0 for the last ten
+     * minutes.
+     * @param toTime End of the range, 0.0 for the newest value.
+     * @param maxPoints Maximum number of values that will be returned.
+     * @return TrendSeries with times and values, newest on index 0.
+     */
+    public TrendSeries query(String component, double fromTime,
+            double toTime, int maxPoints) {
+        int handle = handle(parametersDouble.get(component),
+                doubleValues.length);
+        return HistoryQuery.query(doubleHandles[handle], doubleWrites[handle],
+                stepTime, fromTime, toTime, maxPoints);
+    }
+
+    /**
+     * Calculates aggregates of a double parameter over a time range as it
+     * was at the time the snapshot was created, see ValueHandler.aggregate.
+     *
+     * @param component String to identify the value.
+     * @param fromTime Start of the range, for example -600.0.
+     * @param toTime End of the range, 0.0 for the newest value.
+     * @return ValueAggregate
+     */
+    public ValueAggregate aggregate(String component, double fromTime,
+            double toTime) {
+        int handle = handle(parametersDouble.get(component),
+                doubleValues.length);
+        return HistoryQuery.aggregate(doubleHandles[handle],
+                doubleWrites[handle], stepTime, fromTime, toTime);
+    }
+
+    /**
+     * Checks if a double parameter is part of this snapshot.
+     */
+    boolean contains(PrimitiveDoubleValue param) {
+        return param != null && param.getHandle() >= 0
+                && param.getHandle() < doubleValues.length;
+    }
+
+    int getBooleanCount() {
+        return booleanValues.length;
+    }
+
+    int getDoubleCount() {
+        return doubleValues.length;
+    }
+
+    int getIntCount() {
+        return intValues.length;
+    }
+
+    String getBooleanComponent(int handle) {
+        return booleanHandles[handle].getComponent();
+    }
+
+    String getDoubleComponent(int handle) {
+        return doubleHandles[handle].getComponent();
+    }
+
+    String getIntComponent(int handle) {
+        return intHandles[handle].getComponent();
+    }
+
+    private int handle(AbstractValue param, int count) {
+        if (param == null || param.getHandle() >= count) {
+            throw new IllegalArgumentException(
+                    "Parameter is not part of this snapshot.");
+        }
+        return param.getHandle();
+    }
+}